@@ -0,0 +1,127 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time for a full /api/players response: the old Gson reflection path,
+ * the projection writing JSON, and the projection writing CBOR.
+ * Body sizes for each format are printed once per trial.
+ *
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerEncodingBenchmark {
+    @Param({"10000", "100000"})
+    public int playerCount;
+
+    private final Gson gson = new GsonBuilder().create();
+    private List<PlayerData> players;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            PlayerData pd = new PlayerData(new UUID(random.nextLong(), random.nextLong()), "Player" + i);
+            pd.setTotalPlaytimeSeconds(random.nextInt(2_000_000));
+            pd.setDamageDealt(random.nextFloat() * 100_000);
+            pd.setPlayerKills(random.nextInt(500));
+            pd.setMobKills(random.nextInt(20_000));
+            pd.setDeathCount(random.nextInt(1_000));
+            pd.setBlocksPlaced(random.nextInt(100_000));
+            pd.setBlocksBroken(random.nextInt(100_000));
+            players.add(pd);
+        }
+
+        System.out.printf("%n%d players: gson %d bytes, projection json %d bytes, cbor %d bytes%n", playerCount,
+                gsonReflection().length, projectionJson().length, projectionCbor().length);
+    }
+
+    @Benchmark
+    public byte[] gsonReflection() {
+        List<PlayerDto> dtos = new ArrayList<>(players.size());
+        for (PlayerData pd : players) {
+            dtos.add(new PlayerDto(pd));
+        }
+        return gson.toJson(dtos).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] projectionJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (PlayerData pd : players) {
+                PlayerProjection.ALL.write(writer, pd, null);
+            }
+            writer.endArray();
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] projectionCbor() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CborWriter writer = new CborWriter(out);
+        writer.beginArray(players.size());
+        for (PlayerData pd : players) {
+            PlayerProjection.ALL.write(writer, pd, null);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The reflection-serialized response object the API used before projections.
+     */
+    @SuppressWarnings("unused")
+    private static class PlayerDto {
+        final String uuid;
+        final String username;
+        final long playtimeSeconds;
+        final String playtimeFormatted;
+        final long activePlaytimeSeconds;
+        final long idleSeconds;
+        final boolean online;
+        final float damageDealt;
+        final int playerKills;
+        final int mobKills;
+        final int deathCount;
+        final int blocksPlaced;
+        final int blocksBroken;
+
+        PlayerDto(PlayerData pd) {
+            this.uuid = pd.getUuid().toString();
+            this.username = pd.getUsername();
+            this.playtimeSeconds = pd.getTotalWithCurrentSession();
+            this.playtimeFormatted = pd.getFormattedPlaytime();
+            this.activePlaytimeSeconds = pd.getActivePlaytimeSeconds();
+            this.idleSeconds = pd.getIdleWithCurrentSession();
+            this.online = pd.isOnline();
+            this.damageDealt = pd.getDamageDealt();
+            this.playerKills = pd.getPlayerKills();
+            this.mobKills = pd.getMobKills();
+            this.deathCount = pd.getDeathCount();
+            this.blocksPlaced = pd.getBlocksPlaced();
+            this.blocksBroken = pd.getBlocksBroken();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode time and allocation for one full push payload: the original map-per-player Gson
+ * encoding against PushPayloadEncoder's reused byte buffer.
+ * The gc profiler's gc.alloc.rate.norm is the allocation per push.
+ *
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PushPayloadBenchmark {
+    @Param({"10000", "100000"})
+    public int playerCount;
+
+    private List<PlayerData> players;
+    private PushPayloadEncoder encoder;
+    private Gson gson;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            PlayerData pd = new PlayerData(new UUID(random.nextLong(), random.nextLong()), "Player" + i);
+            pd.setTotalPlaytimeSeconds(random.nextInt(2_000_000));
+            pd.setDamageDealt(random.nextFloat() * 100_000);
+            pd.setPlayerKills(random.nextInt(500));
+            pd.setMobKills(random.nextInt(20_000));
+            pd.setDeathCount(random.nextInt(1_000));
+            pd.setBlocksPlaced(random.nextInt(100_000));
+            pd.setBlocksBroken(random.nextInt(100_000));
+            // A quarter of the players have per-world stats
+            if (i % 4 == 0) {
+                WorldStats world = pd.getOrCreateWorldStats("world");
+                world.setDamageDealt(pd.getDamageDealt());
+                world.setMobKills(pd.getMobKills());
+            }
+            players.add(pd);
+        }
+        encoder = new PushPayloadEncoder(PlayerProjection.ALL, "benchmark", true, false);
+        gson = new GsonBuilder().create();
+    }
+
+    /**
+     * The original pushData: a LinkedHashMap of boxed values per player, the list of maps sorted
+     * by playtime, then the whole tree serialized by Gson to a String and copied to bytes.
+     * It writes fewer player fields than the encoder and no per-world stats, so if anything it
+     * understates the old cost.
+     */
+    @Benchmark
+    public byte[] baselineGsonMaps() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalPlayers", players.size());
+        stats.put("onlinePlayers", 0);
+
+        long totalPlaytime = 0;
+        float totalDamage = 0;
+        int totalPlayerKills = 0;
+        int totalMobKills = 0;
+        int totalDeaths = 0;
+        int totalBlocksPlaced = 0;
+        int totalBlocksBroken = 0;
+        List<Map<String, Object>> playerList = new ArrayList<>();
+        for (PlayerData pd : players) {
+            totalPlaytime += pd.getTotalWithCurrentSession();
+            totalDamage += pd.getDamageDealt();
+            totalPlayerKills += pd.getPlayerKills();
+            totalMobKills += pd.getMobKills();
+            totalDeaths += pd.getDeathCount();
+            totalBlocksPlaced += pd.getBlocksPlaced();
+            totalBlocksBroken += pd.getBlocksBroken();
+
+            Map<String, Object> playerEntry = new LinkedHashMap<>();
+            playerEntry.put("uuid", pd.getUuid().toString());
+            playerEntry.put("username", pd.getUsername());
+            playerEntry.put("playtimeSeconds", pd.getTotalWithCurrentSession());
+            playerEntry.put("playtimeFormatted", pd.getFormattedPlaytime());
+            playerEntry.put("online", pd.isOnline());
+            playerEntry.put("damageDealt", pd.getDamageDealt());
+            playerEntry.put("playerKills", pd.getPlayerKills());
+            playerEntry.put("mobKills", pd.getMobKills());
+            playerEntry.put("deathCount", pd.getDeathCount());
+            playerEntry.put("blocksPlaced", pd.getBlocksPlaced());
+            playerEntry.put("blocksBroken", pd.getBlocksBroken());
+            playerList.add(playerEntry);
+        }
+        playerList.sort((a, b) -> Long.compare(
+                (Long) b.get("playtimeSeconds"),
+                (Long) a.get("playtimeSeconds")
+        ));
+
+        stats.put("totalPlaytimeSeconds", totalPlaytime);
+        stats.put("totalDamageDealt", totalDamage);
+        stats.put("totalPlayerKills", totalPlayerKills);
+        stats.put("totalMobKills", totalMobKills);
+        stats.put("totalDeaths", totalDeaths);
+        stats.put("totalBlocksPlaced", totalBlocksPlaced);
+        stats.put("totalBlocksBroken", totalBlocksBroken);
+
+        payload.put("stats", stats);
+        payload.put("players", playerList);
+        payload.put("lastUpdated", System.currentTimeMillis());
+        payload.put("serverName", "benchmark");
+        payload.put("publicListing", true);
+        return gson.toJson(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] pooledByteEncoder() {
+        return encoder.encode(players, 0, false, "full", -1, 0, players.size(), players::get, List.of()).body;
+    }
+}
@@ -0,0 +1,296 @@
+package com.hytaletravelers.playerlogger.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local stand-in for the cloud ingestion API, so pushes can be exercised without api.hytaletravelers.com.
+ * <p>
+ * Accepts the push protocol on /push: classic full payloads, tagged full and delta payloads, and
+ * heartbeats, gzipped or not. Each server's player set is rebuilt from what it pushes; a delta whose
+ * baseSequence isn't the last sequence accepted from that server gets 409, as the real API would
+ * answer, and the stored set is checked against the payload's totalPlayers after every push.
+ * <p>
+ * Faults can be switched on and off while running: added latency, a share of 503 answers,
+ * refusing gzip bodies with 415, and /moved answering 308 and /elsewhere 307 to /push.
+ */
+public final class IngestionStandIn {
+    private static final int RECENT_LIMIT = 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, ServerState> servers = new ConcurrentHashMap<>();
+    private final Deque<Received> recent = new ArrayDeque<>();
+
+    // Fault injection
+    private volatile int latencyMillis;
+    private volatile int latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile boolean rejectGzip;
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder fullPushes = new LongAdder();
+    final LongAdder deltaPushes = new LongAdder();
+    final LongAdder heartbeats = new LongAdder();
+    final LongAdder bytesOnWire = new LongAdder();
+    final LongAdder bytesDecoded = new LongAdder();
+    final LongAdder gzipBodies = new LongAdder();
+    final LongAdder injectedErrors = new LongAdder();
+    final LongAdder rejectedGzip = new LongAdder();
+    final LongAdder redirects = new LongAdder();
+    final LongAdder deltaConflicts = new LongAdder();
+    final LongAdder inconsistent = new LongAdder();
+    final LongAdder malformed = new LongAdder();
+
+    public IngestionStandIn(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/push", this::handlePush);
+        server.createContext("/moved", exchange -> redirect(exchange, 308));
+        server.createContext("/elsewhere", exchange -> redirect(exchange, 307));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Base URL, e.g. http://127.0.0.1:34567
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(int millis, int jitterMillis) {
+        this.latencyMillis = millis;
+        this.latencyJitterMillis = jitterMillis;
+    }
+
+    /**
+     * Answer this share of pushes (0-1) with 503 before reading them.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setRejectGzip(boolean rejectGzip) {
+        this.rejectGzip = rejectGzip;
+    }
+
+    public Map<String, ServerState> getServers() {
+        return servers;
+    }
+
+    /**
+     * Deltas answered with 409 because their base wasn't the server's last accepted sequence.
+     */
+    public long getDeltaConflicts() {
+        return deltaConflicts.sum();
+    }
+
+    /**
+     * The most recent pushes, oldest first.
+     */
+    public synchronized Received[] getRecent() {
+        return recent.toArray(new Received[0]);
+    }
+
+    private void redirect(HttpExchange exchange, int status) throws IOException {
+        redirects.increment();
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Location", "/push");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private void handlePush(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            int latency = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextInt(latencyJitterMillis) : 0);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            byte[] wire = exchange.getRequestBody().readAllBytes();
+            bytesOnWire.add(wire.length);
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.increment();
+                record(null, "503", wire, -1);
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            if (gzip && rejectGzip) {
+                rejectedGzip.increment();
+                exchange.sendResponseHeaders(415, -1);
+                return;
+            }
+
+            byte[] body = wire;
+            if (gzip) {
+                gzipBodies.increment();
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(wire))) {
+                    body = in.readAllBytes();
+                }
+            }
+            bytesDecoded.add(body.length);
+
+            JsonObject payload;
+            try {
+                payload = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+            } catch (RuntimeException e) {
+                malformed.increment();
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(apply(payload, wire), -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apply a payload to its server's state.
+     *
+     * @return the status to answer with
+     */
+    private int apply(JsonObject payload, byte[] wire) {
+        String serverName = payload.has("serverName") ? payload.get("serverName").getAsString() : "(unnamed)";
+        ServerState state = servers.computeIfAbsent(serverName, ServerState::new);
+
+        synchronized (state) {
+            if (payload.has("heartbeat")) {
+                heartbeats.increment();
+                state.heartbeats++;
+                record(serverName, "heartbeat", wire, -1);
+                return 200;
+            }
+
+            String type = payload.has("type") ? payload.get("type").getAsString() : "full";
+            long sequence = payload.has("sequence") ? payload.get("sequence").getAsLong() : -1;
+            JsonArray players = payload.getAsJsonArray("players");
+
+            if (type.equals("delta")) {
+                long base = payload.get("baseSequence").getAsLong();
+                if (base != state.sequence) {
+                    deltaConflicts.increment();
+                    return 409;
+                }
+                deltaPushes.increment();
+                state.deltas++;
+                for (JsonElement player : players) {
+                    JsonObject entry = player.getAsJsonObject();
+                    state.players.put(entry.get("uuid").getAsString(), entry);
+                }
+                for (JsonElement uuid : payload.getAsJsonArray("removed")) {
+                    state.players.remove(uuid.getAsString());
+                }
+            } else {
+                fullPushes.increment();
+                state.fulls++;
+                state.players.clear();
+                for (JsonElement player : players) {
+                    JsonObject entry = player.getAsJsonObject();
+                    state.players.put(entry.get("uuid").getAsString(), entry);
+                }
+            }
+
+            state.sequence = sequence;
+            state.totalPlayers = payload.getAsJsonObject("stats").get("totalPlayers").getAsInt();
+            state.consistent = state.players.size() == state.totalPlayers;
+            if (!state.consistent) {
+                inconsistent.increment();
+            }
+            record(serverName, type, wire, sequence);
+            return 200;
+        }
+    }
+
+    private synchronized void record(String serverName, String kind, byte[] wire, long sequence) {
+        if (recent.size() >= RECENT_LIMIT) {
+            recent.removeFirst();
+        }
+        recent.addLast(new Received(System.currentTimeMillis(), serverName, kind, wire.length, Arrays.hashCode(wire), sequence));
+    }
+
+    /**
+     * What the stand-in knows about one pushing server.
+     */
+    public static final class ServerState {
+        public final String serverName;
+        final Map<String, JsonObject> players = new HashMap<>();
+        long sequence = -1;
+        int totalPlayers;
+        boolean consistent = true;
+        int fulls;
+        int deltas;
+        int heartbeats;
+
+        ServerState(String serverName) {
+            this.serverName = serverName;
+        }
+
+        public synchronized int getPlayerCount() {
+            return players.size();
+        }
+
+        public synchronized boolean isConsistent() {
+            return consistent;
+        }
+    }
+
+    /**
+     * One accepted push, or one answered with an injected 503 (kind "503", unread, so no server
+     * name or sequence). Pushes with the same wireHash carried the same bytes.
+     */
+    public static final class Received {
+        public final long receivedMillis;
+        public final String serverName;
+        public final String kind;
+        public final int wireBytes;
+        public final int wireHash;
+        public final long sequence;
+
+        Received(long receivedMillis, String serverName, String kind, int wireBytes, int wireHash, long sequence) {
+            this.receivedMillis = receivedMillis;
+            this.serverName = serverName;
+            this.kind = kind;
+            this.wireBytes = wireBytes;
+            this.wireHash = wireHash;
+            this.sequence = sequence;
+        }
+    }
+}
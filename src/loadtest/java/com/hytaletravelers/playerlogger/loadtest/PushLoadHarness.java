@@ -0,0 +1,193 @@
+package com.hytaletravelers.playerlogger.loadtest;
+
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.http.SharedHttpClient;
+import com.hytaletravelers.playerlogger.web.DataPushService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Simulates many game servers pushing to an {@link IngestionStandIn} and checks that every one
+ * of them ends up with a consistent, up-to-date copy on the ingestion side.
+ * <p>
+ * The run has two phases. During the load phase the configured faults are active and a background
+ * thread keeps changing stats, adding players and removing some. Then faults and activity stop
+ * for a settle phase, long enough for retries to drain. The harness exits with status 1 if any
+ * server never got through, ends inconsistent, or doesn't match the final player count.
+ * <p>
+ * All simulated servers share this process's PlayerDataManager, so they push the same players
+ * under different server names; each has its own DataPushService, outbox and push state.
+ *
+ * Run with: ./gradlew loadTest --args="--servers 50 --seconds 30 --error-rate 0.2 --delta true"
+ */
+public final class PushLoadHarness {
+    private PushLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int serverCount = intOption(options, "servers", 20);
+        int playerCount = intOption(options, "players", 2000);
+        int loadSeconds = intOption(options, "seconds", 20);
+        int settleSeconds = intOption(options, "settle-seconds", 15);
+        int intervalSeconds = intOption(options, "interval", 2);
+        int latencyMillis = intOption(options, "latency-ms", 0);
+        int jitterMillis = intOption(options, "jitter-ms", 0);
+        double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        boolean delta = Boolean.parseBoolean(options.getOrDefault("delta", "false"));
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "true"));
+        boolean rejectGzip = Boolean.parseBoolean(options.getOrDefault("reject-gzip", "false"));
+        // push (direct), moved (308, cached) or elsewhere (307, followed every time)
+        String path = options.getOrDefault("path", "push");
+
+        Path workDir = Files.createTempDirectory("playerlogger-loadtest");
+        PlayerDataManager.init(workDir, 10_000);
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        Random random = new Random(42);
+        List<PlayerData> players = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            players.add(manager.getOrCreate(new UUID(random.nextLong(), random.nextLong()), "Player" + i));
+        }
+        // A few players online, so deltas carry growing playtime
+        for (int i = 0; i < Math.min(50, players.size()); i++) {
+            players.get(i).startSession();
+        }
+
+        IngestionStandIn standIn = new IngestionStandIn(0);
+        standIn.setLatency(latencyMillis, jitterMillis);
+        standIn.setErrorRate(errorRate);
+        standIn.setRejectGzip(rejectGzip);
+        standIn.start();
+
+        List<DataPushService> services = new ArrayList<>();
+        for (int i = 0; i < serverCount; i++) {
+            PluginConfig config = new PluginConfig();
+            config.pushUrl = standIn.getBaseUrl() + "/" + path;
+            config.serverName = "sim-" + i;
+            config.pushIntervalSeconds = intervalSeconds;
+            config.pushAdaptive = false;
+            config.pushDeltaEnabled = delta;
+            config.pushCompression = gzip;
+            config.pushRetryBaseSeconds = 1;
+            config.pushRetryMaxSeconds = 4;
+            services.add(new DataPushService(config, Files.createDirectories(workDir.resolve("server-" + i))));
+        }
+
+        System.out.printf("Stand-in at %s, %d servers x %d players, interval %ds, delta=%s, gzip=%s, path=/%s%n",
+                standIn.getBaseUrl(), serverCount, playerCount, intervalSeconds, delta, gzip, path);
+        System.out.printf("Load phase: %ds, latency %d+%dms, error rate %.0f%%%n",
+                loadSeconds, latencyMillis, jitterMillis, errorRate * 100);
+
+        long start = System.currentTimeMillis();
+        services.forEach(DataPushService::start);
+
+        Thread activity = Thread.ofPlatform().daemon().name("loadtest-activity").start(() -> {
+            Random activityRandom = new Random(7);
+            int added = 0;
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    for (int i = 0; i < 20; i++) {
+                        PlayerData pd = players.get(activityRandom.nextInt(players.size()));
+                        if (manager.get(pd.getUuid()) != null) {
+                            pd.incrementMobKills();
+                        }
+                    }
+                    if (activityRandom.nextInt(10) == 0) {
+                        manager.getOrCreate(new UUID(activityRandom.nextLong(), activityRandom.nextLong()), "New" + added++);
+                    }
+                    if (activityRandom.nextInt(20) == 0) {
+                        manager.removePlayer(players.get(50 + activityRandom.nextInt(players.size() - 50)).getUuid());
+                    }
+                    Thread.sleep(100);
+                }
+            } catch (InterruptedException e) {
+                // Load phase over
+            }
+        });
+
+        Thread.sleep(loadSeconds * 1000L);
+        activity.interrupt();
+        activity.join();
+        standIn.setErrorRate(0);
+        standIn.setLatency(0, 0);
+        standIn.setRejectGzip(false);
+        System.out.printf("Settle phase: %ds with faults off%n", settleSeconds);
+        Thread.sleep(settleSeconds * 1000L);
+
+        services.forEach(DataPushService::stop);
+        long elapsedMillis = System.currentTimeMillis() - start;
+        standIn.stop();
+        SharedHttpClient.shutdown();
+
+        boolean passed = report(standIn, serverCount, manager.getPlayerCount(), elapsedMillis);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Print throughput and per-server results.
+     *
+     * @return whether every server ended with a consistent copy of the final player set
+     */
+    private static boolean report(IngestionStandIn standIn, int serverCount, int expectedPlayers, long elapsedMillis) {
+        long requests = standIn.requests.sum();
+        long accepted = standIn.fullPushes.sum() + standIn.deltaPushes.sum() + standIn.heartbeats.sum();
+        double seconds = elapsedMillis / 1000.0;
+
+        System.out.println();
+        System.out.printf("Requests: %d (%.1f/s), accepted %d: %d full, %d delta, %d heartbeat%n",
+                requests, requests / seconds, accepted, standIn.fullPushes.sum(), standIn.deltaPushes.sum(), standIn.heartbeats.sum());
+        System.out.printf("Bytes: %d on the wire, %d decoded (%d gzipped bodies)%n",
+                standIn.bytesOnWire.sum(), standIn.bytesDecoded.sum(), standIn.gzipBodies.sum());
+        System.out.printf("Faults: %d injected 503s, %d gzip refusals, %d redirects served, %d delta conflicts, %d malformed%n",
+                standIn.injectedErrors.sum(), standIn.rejectedGzip.sum(), standIn.redirects.sum(),
+                standIn.deltaConflicts.sum(), standIn.malformed.sum());
+
+        int failed = 0;
+        for (int i = 0; i < serverCount; i++) {
+            String name = "sim-" + i;
+            IngestionStandIn.ServerState state = standIn.getServers().get(name);
+            String problem = null;
+            if (state == null) {
+                problem = "never got a push through";
+            } else if (!state.isConsistent()) {
+                problem = "player set doesn't match its totalPlayers";
+            } else if (state.getPlayerCount() != expectedPlayers) {
+                problem = "has " + state.getPlayerCount() + " players, expected " + expectedPlayers;
+            }
+            if (problem != null) {
+                failed++;
+                System.out.printf("FAIL %s: %s%n", name, problem);
+            }
+        }
+        // Players added or removed while a payload is built can leave one payload off by a few; the next one fixes it
+        System.out.printf("%d/%d servers in sync with %d players (%d transient mismatches during the load phase)%n",
+                serverCount - failed, serverCount, expectedPlayers, standIn.inconsistent.sum());
+        System.out.println(failed == 0 ? "PASSED" : "FAILED");
+        return failed == 0 && standIn.malformed.sum() == 0;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -6,12 +6,18 @@ import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hytaletravelers.playerlogger.commands.ListCommand;
 import com.hytaletravelers.playerlogger.commands.PlayerLoggerPluginCommand;
 import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.config.TrackingProfile;
+import com.hytaletravelers.playerlogger.config.TrackingProfile.Tracker;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.events.EventStream;
+import com.hytaletravelers.playerlogger.http.SharedHttpClient;
 import com.hytaletravelers.playerlogger.listeners.PlayerListener;
 import com.hytaletravelers.playerlogger.systems.BlockBreakTrackingSystem;
 import com.hytaletravelers.playerlogger.systems.BlockPlaceTrackingSystem;
 import com.hytaletravelers.playerlogger.systems.DamageTrackingSystem;
 import com.hytaletravelers.playerlogger.systems.DeathTrackingSystem;
+import com.hytaletravelers.playerlogger.systems.IdleTrackingSystem;
+import com.hytaletravelers.playerlogger.systems.TrackerSwitch;
 import com.hytaletravelers.playerlogger.update.UpdateChecker;
 import com.hytaletravelers.playerlogger.web.DataPushService;
 import com.hytaletravelers.playerlogger.web.WebServer;
@@ -19,6 +25,10 @@ import com.hytaletravelers.playerlogger.webhook.DiscordWebhookService;
 
 import javax.annotation.Nonnull;
 import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 
 /**
@@ -44,9 +54,15 @@ public class PlayerLoggerPlugin extends JavaPlugin {
     private WebServer webServer;
     private DiscordWebhookService webhookService;
 
+    private final Map<Tracker, TrackerSwitch> trackerSwitches = new EnumMap<>(Tracker.class);
+    private final Set<Tracker> registeredTrackers = EnumSet.noneOf(Tracker.class);
+
     public PlayerLoggerPlugin(@Nonnull JavaPluginInit init) {
         super(init);
         instance = this;
+        for (Tracker tracker : Tracker.values()) {
+            trackerSwitches.put(tracker, new TrackerSwitch());
+        }
     }
 
     public static PlayerLoggerPlugin getInstance() {
@@ -61,6 +77,24 @@ public class PlayerLoggerPlugin extends JavaPlugin {
         return webhookService;
     }
 
+    /**
+     * Live event stream for /api/events, or null if the local API is disabled.
+     */
+    public EventStream getEventStream() {
+        return webServer != null ? webServer.getEventStream() : null;
+    }
+
+    public TrackerSwitch getTrackerSwitch(Tracker tracker) {
+        return trackerSwitches.get(tracker);
+    }
+
+    /**
+     * Persist the current configuration to config.json.
+     */
+    public void saveConfig() {
+        config.save(getDataDirectory().resolve("config.json"));
+    }
+
     @Override
     protected void setup() {
         LOGGER.at(Level.INFO).log("[PlayerLogger] Initializing...");
@@ -71,7 +105,7 @@ public class PlayerLoggerPlugin extends JavaPlugin {
         config = PluginConfig.load(dataFolder);
 
         // Initialize data manager
-        PlayerDataManager.init(dataFolder);
+        PlayerDataManager.init(dataFolder, config.changeLogCapacity);
 
         // Register commands
         getCommandRegistry().registerCommand(new PlayerLoggerPluginCommand());
@@ -81,7 +115,7 @@ public class PlayerLoggerPlugin extends JavaPlugin {
         new PlayerListener().register(getEventRegistry());
 
         // Register ECS systems for stat tracking
-        registerTrackingSystems();
+        applyTrackingProfile();
 
         // Start optional services
         startPushService();
@@ -118,17 +152,65 @@ public class PlayerLoggerPlugin extends JavaPlugin {
             webhookService.stop();
         }
 
+        SharedHttpClient.shutdown();
+
         PlayerDataManager.getInstance().save();
         instance = null;
 
         LOGGER.at(Level.INFO).log("[PlayerLogger] Goodbye!");
     }
 
-    private void registerTrackingSystems() {
-        getEntityStoreRegistry().registerSystem(new DamageTrackingSystem());
-        getEntityStoreRegistry().registerSystem(new DeathTrackingSystem());
-        getEntityStoreRegistry().registerSystem(new BlockBreakTrackingSystem());
-        getEntityStoreRegistry().registerSystem(new BlockPlaceTrackingSystem());
+    /**
+     * Apply the configured tracking profile.
+     * Systems are only registered once a profile enables them, so disabled trackers cost
+     * nothing; trackers turned off later are switched off and return before doing any work.
+     *
+     * @return the trackers now enabled
+     */
+    public synchronized Set<Tracker> applyTrackingProfile() {
+        TrackingProfile profile = TrackingProfile.fromString(config.trackingProfile);
+        if (profile == null) {
+            LOGGER.at(Level.WARNING).log("[PlayerLogger] Unknown tracking profile '%s', using full", config.trackingProfile);
+            profile = TrackingProfile.FULL;
+        }
+
+        Set<Tracker> enabled = profile.resolve(config);
+
+        trackerSwitches.get(Tracker.DAMAGE).setLogSampleRate(config.damageLogSampleRate);
+        trackerSwitches.get(Tracker.DEATHS).setLogSampleRate(config.deathLogSampleRate);
+        trackerSwitches.get(Tracker.BLOCK_BREAK).setLogSampleRate(config.blockBreakLogSampleRate);
+        trackerSwitches.get(Tracker.BLOCK_PLACE).setLogSampleRate(config.blockPlaceLogSampleRate);
+
+        for (Tracker tracker : Tracker.values()) {
+            TrackerSwitch trackerSwitch = trackerSwitches.get(tracker);
+            boolean on = enabled.contains(tracker);
+            if (on && !registeredTrackers.contains(tracker)) {
+                try {
+                    registerTrackingSystem(tracker, trackerSwitch);
+                    registeredTrackers.add(tracker);
+                } catch (Exception e) {
+                    LOGGER.at(Level.WARNING).withCause(e).log(
+                            "[PlayerLogger] Could not register %s tracker, restart to enable it", tracker);
+                    on = false;
+                }
+            }
+            trackerSwitch.setEnabled(on);
+        }
+
+        LOGGER.at(Level.INFO).log("[PlayerLogger] Tracking profile: %s %s",
+                profile.name().toLowerCase(), enabled);
+        return enabled;
+    }
+
+    private void registerTrackingSystem(Tracker tracker, TrackerSwitch trackerSwitch) {
+        switch (tracker) {
+            case DAMAGE -> getEntityStoreRegistry().registerSystem(new DamageTrackingSystem(trackerSwitch));
+            case DEATHS -> getEntityStoreRegistry().registerSystem(new DeathTrackingSystem(trackerSwitch));
+            case BLOCK_BREAK -> getEntityStoreRegistry().registerSystem(new BlockBreakTrackingSystem(trackerSwitch));
+            case BLOCK_PLACE -> getEntityStoreRegistry().registerSystem(new BlockPlaceTrackingSystem(trackerSwitch));
+            case IDLE -> getEntityStoreRegistry().registerSystem(new IdleTrackingSystem(
+                    trackerSwitch, config.afkSampleIntervalSeconds, config.afkTimeoutSeconds));
+        }
     }
 
     private void startPushService() {
@@ -136,12 +218,7 @@ public class PlayerLoggerPlugin extends JavaPlugin {
             return;
         }
 
-        pushService = new DataPushService(
-                config.pushUrl,
-                config.pushIntervalSeconds,
-                config.serverName,
-                config.publicListing
-        );
+        pushService = new DataPushService(config, getDataDirectory());
         pushService.start();
 
         LOGGER.at(Level.INFO).log("[PlayerLogger] Cloud sync enabled -> %s", config.pushUrl);
@@ -153,7 +230,7 @@ public class PlayerLoggerPlugin extends JavaPlugin {
         }
 
         try {
-            webServer = new WebServer(config.webBindAddress, config.webPort);
+            webServer = new WebServer(config);
             webServer.start();
             LOGGER.at(Level.INFO).log("[PlayerLogger] Local API: http://%s:%d/api/players",
                     config.webBindAddress, config.webPort);
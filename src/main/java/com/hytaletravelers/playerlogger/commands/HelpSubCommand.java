@@ -34,6 +34,7 @@ public class HelpSubCommand extends CommandBase {
         context.sendMessage(Message.raw("  /pl wipe all       - Wipe all data"));
         context.sendMessage(Message.raw("  /pl reset <stat>   - Reset stat for all"));
         context.sendMessage(Message.raw("  /pl reset <stat> <player>"));
+        context.sendMessage(Message.raw("  /pl profile [name] - Tracking profile"));
         context.sendMessage(Message.raw(""));
         context.sendMessage(Message.raw("Stat categories:"));
         context.sendMessage(Message.raw("  all, combat, blocks, playtime,"));
@@ -10,6 +10,7 @@ import com.hypixel.hytale.server.core.command.system.basecommands.AbstractComman
  *   /pl ui                - Open the stats dashboard
  *   /pl wipe <player|all> - Remove player data
  *   /pl reset <category>  - Reset specific stats
+ *   /pl profile [name]    - Show or switch the tracking profile
  */
 public class PlayerLoggerPluginCommand extends AbstractCommandCollection {
 
@@ -20,6 +21,7 @@ public class PlayerLoggerPluginCommand extends AbstractCommandCollection {
         this.addSubCommand(new UISubCommand());
         this.addSubCommand(new WipeSubCommand());
         this.addSubCommand(new ResetSubCommand());
+        this.addSubCommand(new ProfileSubCommand());
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.hytaletravelers.playerlogger.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.config.TrackingProfile;
+import com.hytaletravelers.playerlogger.config.TrackingProfile.Tracker;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+/**
+ * /pl profile [name] - Show or switch the tracking profile without a restart.
+ *
+ * Usage:
+ *   /pl profile          - Show the active profile and trackers
+ *   /pl profile combat   - Only track damage, kills and deaths
+ *
+ * Profiles: full, combat, blocks, minimal, custom
+ */
+public class ProfileSubCommand extends CommandBase {
+
+    private final OptionalArg<String> profileArg;
+
+    public ProfileSubCommand() {
+        super("profile", "Show or switch the tracking profile");
+        this.requirePermission("playerlogger.command.profile");
+        this.profileArg = withOptionalArg("profile", "Profile to switch to", ArgTypes.STRING);
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext context) {
+        PlayerLoggerPlugin plugin = PlayerLoggerPlugin.getInstance();
+        PluginConfig config = plugin.getPluginConfig();
+        String profileName = context.get(profileArg);
+
+        if (profileName == null || profileName.isEmpty()) {
+            context.sendMessage(Message.raw("Tracking profile: " + config.trackingProfile));
+            sendProfiles(context);
+            return;
+        }
+
+        TrackingProfile profile = TrackingProfile.fromString(profileName);
+        if (profile == null) {
+            context.sendMessage(Message.raw("Unknown profile: " + profileName));
+            sendProfiles(context);
+            return;
+        }
+
+        config.trackingProfile = profile.name().toLowerCase();
+        plugin.saveConfig();
+        Set<Tracker> enabled = plugin.applyTrackingProfile();
+
+        context.sendMessage(Message.raw("Switched to " + config.trackingProfile + " (" + profile.getDescription() + ")"));
+        context.sendMessage(Message.raw("Active trackers: " + enabled));
+    }
+
+    private void sendProfiles(CommandContext context) {
+        for (TrackingProfile profile : TrackingProfile.values()) {
+            context.sendMessage(Message.raw("  " + profile.name().toLowerCase() + " - " + profile.getDescription()));
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 
 /**
@@ -17,7 +19,7 @@ import java.util.logging.Level;
 public class PluginConfig {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static final int CURRENT_CONFIG_VERSION = 2;
+    private static final int CURRENT_CONFIG_VERSION = 15;
 
     // Config version for migration tracking
     public String _configVersion = "Internal version number - do not modify";
@@ -30,9 +32,45 @@ public class PluginConfig {
     public String _pushUrl = "API endpoint for cloud sync (don't change unless self-hosting)";
     public String pushUrl = "https://api.hytaletravelers.com";
 
-    public String _pushIntervalSeconds = "How often to sync data to the cloud (in seconds)";
+    public String _pushIntervalSeconds = "How often to sync data to the cloud (in seconds). With adaptive pushes, the interval while players are online";
     public int pushIntervalSeconds = 30;
 
+    public String _pushAdaptive = "Push sooner when stats change quickly and less often when the server is idle, between pushMinIntervalSeconds and pushMaxIntervalSeconds";
+    public boolean pushAdaptive = true;
+
+    public String _pushMinIntervalSeconds = "With adaptive pushes, the shortest time between pushes (in seconds)";
+    public int pushMinIntervalSeconds = 10;
+
+    public String _pushMaxIntervalSeconds = "With adaptive pushes, the longest time between pushes while nobody is online and nothing changes (in seconds)";
+    public int pushMaxIntervalSeconds = 300;
+
+    public String _pushAdaptiveChanges = "With adaptive pushes, push early once this many players have changed";
+    public int pushAdaptiveChanges = 50;
+
+    public String _pushFields = "Comma-separated player fields to push (empty = all); uuid and username are always sent";
+    public String pushFields = "";
+
+    public String _pushDeltaEnabled = "Send only players changed since the last accepted push (the server must support deltas); falls back to full pushes when rejected";
+    public boolean pushDeltaEnabled = false;
+
+    public String _pushFullResyncMinutes = "With delta pushes, send a full snapshot at least this often (in minutes)";
+    public int pushFullResyncMinutes = 30;
+
+    public String _pushCompression = "Gzip push bodies (the server must accept Content-Encoding: gzip); switched off automatically if the first gzipped push is refused";
+    public boolean pushCompression = false;
+
+    public String _pushSkipUnchanged = "Send a small heartbeat instead of the payload when nothing changed since the last accepted push (the server must support heartbeats)";
+    public boolean pushSkipUnchanged = false;
+
+    public String _pushRetryBaseSeconds = "After a failed push, retry after this many seconds, doubling with each failure";
+    public int pushRetryBaseSeconds = 5;
+
+    public String _pushRetryMaxSeconds = "Longest wait between push retries while the server is unreachable (in seconds)";
+    public int pushRetryMaxSeconds = 600;
+
+    public String _pushTargets = "Extra push destinations, each with its own url, intervalSeconds, adaptive, deltaEnabled, compression, skipUnchanged and backpressure (latest or drop)";
+    public List<PushTarget> pushTargets = new ArrayList<>();
+
     // Custom server identifier (optional)
     public String _serverName = "Custom display name for your server (e.g., 'play.myserver.com'). Leave empty to use your IP.";
     public String serverName = "";
@@ -51,6 +89,80 @@ public class PluginConfig {
     public String _webBindAddress = "Bind address for local API (0.0.0.0 = all interfaces)";
     public String webBindAddress = "0.0.0.0";
 
+    public String _webMaxConcurrentRequests = "Maximum API requests handled at once; extra requests wait in a queue";
+    public int webMaxConcurrentRequests = 16;
+
+    public String _webRequestTimeoutSeconds = "Seconds a request may wait in the queue, and then run, before it is aborted";
+    public int webRequestTimeoutSeconds = 10;
+
+    public String _webCompressionMinBytes = "Compress API responses (gzip/deflate) larger than this many bytes when the client accepts it. 0 disables compression";
+    public int webCompressionMinBytes = 1024;
+
+    public String _webRateLimitPerSecond = "Requests per second each client IP may sustain on the local API. 0 disables rate limiting";
+    public double webRateLimitPerSecond = 5;
+
+    public String _webRateLimitBurst = "Requests a client IP may send in a burst before the per-second limit applies";
+    public int webRateLimitBurst = 20;
+
+    public String _webRateLimitMaxClients = "Client IPs tracked individually for rate limiting; beyond this they share one limit";
+    public int webRateLimitMaxClients = 4096;
+
+    public String _webMaxQueuedRequests = "Requests allowed to wait for a free slot; more are rejected immediately with 429";
+    public int webMaxQueuedRequests = 64;
+
+    public String _webMaxEventSubscribers = "Maximum clients connected to the /api/events live stream at once";
+    public int webMaxEventSubscribers = 32;
+
+    public String _webEventBufferSize = "Live events kept for /api/events; clients that fall this far behind are disconnected";
+    public int webEventBufferSize = 1024;
+
+    public String _webEventDeltaIntervalSeconds = "How often changed stats of online players are sent on /api/events (in seconds)";
+    public int webEventDeltaIntervalSeconds = 5;
+
+    public String _changeLogCapacity = "Latest changes kept for /api/changes and delta pushes, one per player, removals included; clients further behind must resync";
+    public int changeLogCapacity = 10000;
+
+    // AFK detection
+    public String _afkDetectionEnabled = "Detect idle (AFK) players and track their idle time separately from active playtime";
+    public boolean afkDetectionEnabled = true;
+
+    public String _afkTimeoutSeconds = "Seconds without moving or looking around before a player counts as idle";
+    public int afkTimeoutSeconds = 300;
+
+    public String _afkSampleIntervalSeconds = "How often each online player's position is sampled for idle detection (in seconds)";
+    public int afkSampleIntervalSeconds = 5;
+
+    public String _rankByActivePlaytime = "Rank leaderboards and sort pushed/API player lists by active playtime (excludes idle time)";
+    public boolean rankByActivePlaytime = false;
+
+    // Tracking profiles
+    public String _trackingProfile = "Which stats to track: full, combat, blocks, minimal (playtime only) or custom. Change live with /pl profile";
+    public String trackingProfile = "full";
+
+    public String _trackDamage = "With the custom profile: track damage dealt and kills";
+    public boolean trackDamage = true;
+
+    public String _trackDeaths = "With the custom profile: track deaths";
+    public boolean trackDeaths = true;
+
+    public String _trackBlockBreak = "With the custom profile: track blocks broken";
+    public boolean trackBlockBreak = true;
+
+    public String _trackBlockPlace = "With the custom profile: track blocks placed";
+    public boolean trackBlockPlace = true;
+
+    public String _damageLogSampleRate = "Log and stream 1 in N kills to the server log and /api/events (all are still counted)";
+    public int damageLogSampleRate = 1;
+
+    public String _deathLogSampleRate = "Log and stream 1 in N deaths to the server log and /api/events (all are still counted)";
+    public int deathLogSampleRate = 1;
+
+    public String _blockBreakLogSampleRate = "Log 1 in N block breaks to the server log at FINE level (all are still counted)";
+    public int blockBreakLogSampleRate = 100;
+
+    public String _blockPlaceLogSampleRate = "Log 1 in N block placements to the server log at FINE level (all are still counted)";
+    public int blockPlaceLogSampleRate = 100;
+
     // Discord Webhook
     public String _webhookEnabled = "Enable Discord webhook notifications";
     public boolean webhookEnabled = false;
@@ -140,6 +252,42 @@ public class PluginConfig {
             writer.write("  \"_pushIntervalSeconds\": \"" + _pushIntervalSeconds + "\",\n");
             writer.write("  \"pushIntervalSeconds\": " + pushIntervalSeconds + ",\n\n");
 
+            writer.write("  \"_pushAdaptive\": \"" + _pushAdaptive + "\",\n");
+            writer.write("  \"pushAdaptive\": " + pushAdaptive + ",\n\n");
+
+            writer.write("  \"_pushMinIntervalSeconds\": \"" + _pushMinIntervalSeconds + "\",\n");
+            writer.write("  \"pushMinIntervalSeconds\": " + pushMinIntervalSeconds + ",\n\n");
+
+            writer.write("  \"_pushMaxIntervalSeconds\": \"" + _pushMaxIntervalSeconds + "\",\n");
+            writer.write("  \"pushMaxIntervalSeconds\": " + pushMaxIntervalSeconds + ",\n\n");
+
+            writer.write("  \"_pushAdaptiveChanges\": \"" + _pushAdaptiveChanges + "\",\n");
+            writer.write("  \"pushAdaptiveChanges\": " + pushAdaptiveChanges + ",\n\n");
+
+            writer.write("  \"_pushFields\": \"" + _pushFields + "\",\n");
+            writer.write("  \"pushFields\": \"" + pushFields + "\",\n\n");
+
+            writer.write("  \"_pushDeltaEnabled\": \"" + _pushDeltaEnabled + "\",\n");
+            writer.write("  \"pushDeltaEnabled\": " + pushDeltaEnabled + ",\n\n");
+
+            writer.write("  \"_pushFullResyncMinutes\": \"" + _pushFullResyncMinutes + "\",\n");
+            writer.write("  \"pushFullResyncMinutes\": " + pushFullResyncMinutes + ",\n\n");
+
+            writer.write("  \"_pushCompression\": \"" + _pushCompression + "\",\n");
+            writer.write("  \"pushCompression\": " + pushCompression + ",\n\n");
+
+            writer.write("  \"_pushSkipUnchanged\": \"" + _pushSkipUnchanged + "\",\n");
+            writer.write("  \"pushSkipUnchanged\": " + pushSkipUnchanged + ",\n\n");
+
+            writer.write("  \"_pushRetryBaseSeconds\": \"" + _pushRetryBaseSeconds + "\",\n");
+            writer.write("  \"pushRetryBaseSeconds\": " + pushRetryBaseSeconds + ",\n\n");
+
+            writer.write("  \"_pushRetryMaxSeconds\": \"" + _pushRetryMaxSeconds + "\",\n");
+            writer.write("  \"pushRetryMaxSeconds\": " + pushRetryMaxSeconds + ",\n\n");
+
+            writer.write("  \"_pushTargets\": \"" + _pushTargets + "\",\n");
+            writer.write("  \"pushTargets\": " + GSON.toJson(pushTargets).replace("\n", "\n  ") + ",\n\n");
+
             writer.write("  \"_serverName\": \"" + _serverName + "\",\n");
             writer.write("  \"serverName\": \"" + serverName + "\",\n\n");
 
@@ -155,6 +303,78 @@ public class PluginConfig {
             writer.write("  \"_webBindAddress\": \"" + _webBindAddress + "\",\n");
             writer.write("  \"webBindAddress\": \"" + webBindAddress + "\",\n\n");
 
+            writer.write("  \"_webMaxConcurrentRequests\": \"" + _webMaxConcurrentRequests + "\",\n");
+            writer.write("  \"webMaxConcurrentRequests\": " + webMaxConcurrentRequests + ",\n\n");
+
+            writer.write("  \"_webRequestTimeoutSeconds\": \"" + _webRequestTimeoutSeconds + "\",\n");
+            writer.write("  \"webRequestTimeoutSeconds\": " + webRequestTimeoutSeconds + ",\n\n");
+
+            writer.write("  \"_webCompressionMinBytes\": \"" + _webCompressionMinBytes + "\",\n");
+            writer.write("  \"webCompressionMinBytes\": " + webCompressionMinBytes + ",\n\n");
+
+            writer.write("  \"_webRateLimitPerSecond\": \"" + _webRateLimitPerSecond + "\",\n");
+            writer.write("  \"webRateLimitPerSecond\": " + webRateLimitPerSecond + ",\n\n");
+
+            writer.write("  \"_webRateLimitBurst\": \"" + _webRateLimitBurst + "\",\n");
+            writer.write("  \"webRateLimitBurst\": " + webRateLimitBurst + ",\n\n");
+
+            writer.write("  \"_webRateLimitMaxClients\": \"" + _webRateLimitMaxClients + "\",\n");
+            writer.write("  \"webRateLimitMaxClients\": " + webRateLimitMaxClients + ",\n\n");
+
+            writer.write("  \"_webMaxQueuedRequests\": \"" + _webMaxQueuedRequests + "\",\n");
+            writer.write("  \"webMaxQueuedRequests\": " + webMaxQueuedRequests + ",\n\n");
+
+            writer.write("  \"_webMaxEventSubscribers\": \"" + _webMaxEventSubscribers + "\",\n");
+            writer.write("  \"webMaxEventSubscribers\": " + webMaxEventSubscribers + ",\n\n");
+
+            writer.write("  \"_webEventBufferSize\": \"" + _webEventBufferSize + "\",\n");
+            writer.write("  \"webEventBufferSize\": " + webEventBufferSize + ",\n\n");
+
+            writer.write("  \"_webEventDeltaIntervalSeconds\": \"" + _webEventDeltaIntervalSeconds + "\",\n");
+            writer.write("  \"webEventDeltaIntervalSeconds\": " + webEventDeltaIntervalSeconds + ",\n\n");
+
+            writer.write("  \"_changeLogCapacity\": \"" + _changeLogCapacity + "\",\n");
+            writer.write("  \"changeLogCapacity\": " + changeLogCapacity + ",\n\n");
+
+            writer.write("  \"_afkDetectionEnabled\": \"" + _afkDetectionEnabled + "\",\n");
+            writer.write("  \"afkDetectionEnabled\": " + afkDetectionEnabled + ",\n\n");
+
+            writer.write("  \"_afkTimeoutSeconds\": \"" + _afkTimeoutSeconds + "\",\n");
+            writer.write("  \"afkTimeoutSeconds\": " + afkTimeoutSeconds + ",\n\n");
+
+            writer.write("  \"_afkSampleIntervalSeconds\": \"" + _afkSampleIntervalSeconds + "\",\n");
+            writer.write("  \"afkSampleIntervalSeconds\": " + afkSampleIntervalSeconds + ",\n\n");
+
+            writer.write("  \"_rankByActivePlaytime\": \"" + _rankByActivePlaytime + "\",\n");
+            writer.write("  \"rankByActivePlaytime\": " + rankByActivePlaytime + ",\n\n");
+
+            writer.write("  \"_trackingProfile\": \"" + _trackingProfile + "\",\n");
+            writer.write("  \"trackingProfile\": \"" + trackingProfile + "\",\n\n");
+
+            writer.write("  \"_trackDamage\": \"" + _trackDamage + "\",\n");
+            writer.write("  \"trackDamage\": " + trackDamage + ",\n\n");
+
+            writer.write("  \"_trackDeaths\": \"" + _trackDeaths + "\",\n");
+            writer.write("  \"trackDeaths\": " + trackDeaths + ",\n\n");
+
+            writer.write("  \"_trackBlockBreak\": \"" + _trackBlockBreak + "\",\n");
+            writer.write("  \"trackBlockBreak\": " + trackBlockBreak + ",\n\n");
+
+            writer.write("  \"_trackBlockPlace\": \"" + _trackBlockPlace + "\",\n");
+            writer.write("  \"trackBlockPlace\": " + trackBlockPlace + ",\n\n");
+
+            writer.write("  \"_damageLogSampleRate\": \"" + _damageLogSampleRate + "\",\n");
+            writer.write("  \"damageLogSampleRate\": " + damageLogSampleRate + ",\n\n");
+
+            writer.write("  \"_deathLogSampleRate\": \"" + _deathLogSampleRate + "\",\n");
+            writer.write("  \"deathLogSampleRate\": " + deathLogSampleRate + ",\n\n");
+
+            writer.write("  \"_blockBreakLogSampleRate\": \"" + _blockBreakLogSampleRate + "\",\n");
+            writer.write("  \"blockBreakLogSampleRate\": " + blockBreakLogSampleRate + ",\n\n");
+
+            writer.write("  \"_blockPlaceLogSampleRate\": \"" + _blockPlaceLogSampleRate + "\",\n");
+            writer.write("  \"blockPlaceLogSampleRate\": " + blockPlaceLogSampleRate + ",\n\n");
+
             writer.write("  \"_webhookEnabled\": \"" + _webhookEnabled + "\",\n");
             writer.write("  \"webhookEnabled\": " + webhookEnabled + ",\n\n");
 
@@ -187,4 +407,18 @@ public class PluginConfig {
             LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to save config");
         }
     }
+
+    /**
+     * An extra push destination. Retry, adaptive interval bounds and pushFields are shared with the primary target.
+     */
+    public static class PushTarget {
+        public String url = "";
+        public int intervalSeconds = 30;
+        public boolean adaptive = false;
+        public boolean deltaEnabled = false;
+        public boolean compression = false;
+        public boolean skipUnchanged = false;
+        // "latest" sends again as soon as a slow push finishes, "drop" skips pushes that fall due meanwhile
+        public String backpressure = "latest";
+    }
 }
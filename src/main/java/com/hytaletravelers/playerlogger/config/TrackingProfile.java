@@ -0,0 +1,67 @@
+package com.hytaletravelers.playerlogger.config;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Presets deciding which stat trackers (ECS systems) are active.
+ */
+public enum TrackingProfile {
+    FULL("all trackers", EnumSet.allOf(Tracker.class)),
+    COMBAT("damage, kills and deaths", EnumSet.of(Tracker.DAMAGE, Tracker.DEATHS, Tracker.IDLE)),
+    BLOCKS("blocks placed and broken", EnumSet.of(Tracker.BLOCK_BREAK, Tracker.BLOCK_PLACE, Tracker.IDLE)),
+    MINIMAL("playtime only", EnumSet.of(Tracker.IDLE)),
+    CUSTOM("trackers chosen by the track* config options", EnumSet.noneOf(Tracker.class));
+
+    private final String description;
+    private final Set<Tracker> trackers;
+
+    TrackingProfile(String description, Set<Tracker> trackers) {
+        this.description = description;
+        this.trackers = trackers;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Resolve the trackers this profile enables under the given config.
+     * Idle detection additionally requires afkDetectionEnabled.
+     */
+    public Set<Tracker> resolve(PluginConfig config) {
+        Set<Tracker> enabled = EnumSet.noneOf(Tracker.class);
+        if (this == CUSTOM) {
+            if (config.trackDamage) enabled.add(Tracker.DAMAGE);
+            if (config.trackDeaths) enabled.add(Tracker.DEATHS);
+            if (config.trackBlockBreak) enabled.add(Tracker.BLOCK_BREAK);
+            if (config.trackBlockPlace) enabled.add(Tracker.BLOCK_PLACE);
+            enabled.add(Tracker.IDLE);
+        } else {
+            enabled.addAll(trackers);
+        }
+        if (!config.afkDetectionEnabled) {
+            enabled.remove(Tracker.IDLE);
+        }
+        return enabled;
+    }
+
+    public static TrackingProfile fromString(String name) {
+        try {
+            return valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Individual stat trackers, one per ECS system.
+     */
+    public enum Tracker {
+        DAMAGE,
+        DEATHS,
+        BLOCK_BREAK,
+        BLOCK_PLACE,
+        IDLE
+    }
+}
@@ -0,0 +1,197 @@
+package com.hytaletravelers.playerlogger.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change tracking for incremental sync: a bounded log holding the latest change per player.
+ * <p>
+ * Recording a change takes no lock. A player flags itself as changed, and its first change
+ * since it was last stamped also puts it on a lock-free pending queue. Readers first stamp the
+ * pending players with the next value of the manager's change sequence, moving each one's entry
+ * to the tail of the log. The log is in sequence order, so "what changed since N" is read
+ * backwards from the tail until an entry at or below N. Stamping costs O(players changed) and
+ * reading costs O(changes returned), however many players there are.
+ * <p>
+ * Stamping happens at most once per STAMP_INTERVAL_MILLIS, so the sequence - which is also the
+ * data version that ETags, cached responses and rankings follow - moves at most that often
+ * however busy the server is.
+ * <p>
+ * The log keeps the latest capacity entries, changes and removals alike. Once the oldest is
+ * evicted, readers whose cursor is older than it have to resync; readers that keep up are
+ * unaffected by bursts.
+ */
+public final class ChangeLog {
+    private static final long STAMP_INTERVAL_MILLIS = 1000;
+
+    private final int capacity;
+    private final AtomicLong sequence;
+    private final Map<UUID, PlayerData> players;
+    // Players flagged since the last stamp, in no particular order; may hold duplicates
+    private final Queue<PlayerData> pendingPlayers = new ConcurrentLinkedQueue<>();
+    private final List<UUID> pendingRemovals = new ArrayList<>();
+    // Insertion order is sequence order: an entry is moved to the tail when stamped again
+    private final LinkedHashMap<UUID, Change> entries = new LinkedHashMap<>();
+    // Every change after this sequence is still in the log
+    private long floor;
+    // Changed players and removals stamped so far
+    private long changeCount;
+    private long nextStampMillis;
+
+    ChangeLog(int capacity, AtomicLong sequence, Map<UUID, PlayerData> players) {
+        this.capacity = Math.max(1, capacity);
+        this.sequence = sequence;
+        this.players = players;
+        this.floor = sequence.get();
+    }
+
+    /**
+     * Queue a player that flagged itself as changed. Called from game threads on each player's
+     * first change since its last stamp.
+     */
+    void markPending(PlayerData player) {
+        pendingPlayers.add(player);
+    }
+
+    /**
+     * Record that the player was removed.
+     */
+    synchronized void recordRemoval(UUID uuid) {
+        pendingRemovals.add(uuid);
+    }
+
+    /**
+     * Drop every entry, so all readers resync. Used when the whole player set is replaced.
+     */
+    synchronized void reset() {
+        pendingPlayers.clear();
+        pendingRemovals.clear();
+        entries.clear();
+        floor = sequence.incrementAndGet();
+    }
+
+    /**
+     * Stamp the players changed since the last stamp with the next sequence number,
+     * unless the last stamp was less than STAMP_INTERVAL_MILLIS ago.
+     *
+     * @return the current end of the change sequence
+     */
+    private long stampPending() {
+        long now = System.currentTimeMillis();
+        if ((pendingPlayers.isEmpty() && pendingRemovals.isEmpty()) || now < nextStampMillis) {
+            return sequence.get();
+        }
+        nextStampMillis = now + STAMP_INTERVAL_MILLIS;
+
+        long seq = sequence.get() + 1;
+        int stamped = 0;
+        // Removals first, so a player removed and added again within one stamp ends up changed
+        for (UUID uuid : pendingRemovals) {
+            append(uuid, new Change(uuid, seq, true));
+            stamped++;
+        }
+        pendingRemovals.clear();
+        PlayerData player;
+        while ((player = pendingPlayers.poll()) != null) {
+            // Cleared before the entry is written: a change made meanwhile queues the player again
+            if (player.takeChanged() && players.get(player.getUuid()) == player) {
+                append(player.getUuid(), new Change(player.getUuid(), seq, false));
+                stamped++;
+            }
+        }
+
+        if (stamped > 0) {
+            // Only moves when something changed, so the data version stays put on a quiet server
+            sequence.set(seq);
+            changeCount += stamped;
+        }
+        return sequence.get();
+    }
+
+    private void append(UUID uuid, Change change) {
+        entries.remove(uuid);
+        entries.put(uuid, change);
+        if (entries.size() > capacity) {
+            Iterator<Change> oldest = entries.values().iterator();
+            floor = oldest.next().seq;
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Get the changes after the given sequence, oldest first.
+     *
+     * @return the changes, or null if the log no longer reaches back that far
+     *         (or the cursor is from a previous run) and the reader must resync
+     */
+    public synchronized Batch since(long since) {
+        long current = stampPending();
+        if (since < floor || since > current) {
+            return null;
+        }
+
+        List<Change> result = new ArrayList<>();
+        for (Change change : entries.sequencedValues().reversed()) {
+            if (change.seq <= since) {
+                break;
+            }
+            result.add(change);
+        }
+        Collections.reverse(result);
+        return new Batch(since, current, result);
+    }
+
+    /**
+     * Current end of the change sequence, covering every change recorded up to the last stamp.
+     */
+    public synchronized long getSequence() {
+        return stampPending();
+    }
+
+    /**
+     * Total player changes and removals recorded so far, counting each player once per stamp.
+     * The difference between two readings is how many changes happened in between.
+     */
+    public synchronized long getChangeCount() {
+        stampPending();
+        return changeCount;
+    }
+
+    /**
+     * Latest change to one player.
+     */
+    public static final class Change {
+        public final UUID uuid;
+        public final long seq;
+        public final boolean removed;
+
+        Change(UUID uuid, long seq, boolean removed) {
+            this.uuid = uuid;
+            this.seq = seq;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Changes between two sequence numbers. Readers continue from {@link #sequence} next time.
+     */
+    public static final class Batch {
+        public final long since;
+        public final long sequence;
+        public final List<Change> changes;
+
+        Batch(long since, long sequence, List<Change> changes) {
+            this.since = since;
+            this.sequence = sequence;
+            this.changes = changes;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.hytaletravelers.playerlogger.data;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a tracked player with their statistics.
@@ -8,6 +11,10 @@ import java.util.UUID;
  */
 public class PlayerData {
 
+    // Minimum movement (blocks) / rotation (radians) between samples that counts as activity
+    private static final double MOVE_EPSILON = 0.05;
+    private static final float LOOK_EPSILON = 0.01f;
+
     private final UUID uuid;
     private final String username;
 
@@ -15,6 +22,19 @@ public class PlayerData {
     private long totalPlaytimeSeconds;
     private long sessionStartTime;
 
+    // Idle tracking (active playtime = total - idle)
+    private long totalIdleSeconds;
+    private long sessionIdleMillis;
+    private long lastSampleTime;
+    private long nextSampleTime;
+    private long lastActivityTime;
+    private double lastX;
+    private double lastY;
+    private double lastZ;
+    private float lastYaw;
+    private float lastPitch;
+    private boolean idle;
+
     // Combat stats
     private float damageDealt;
     private int playerKills;
@@ -25,12 +45,50 @@ public class PlayerData {
     private int blocksPlaced;
     private int blocksBroken;
 
+    // Per-world partitions, null until the player does something tracked in any world
+    private volatile Map<String, WorldStats> worldStats;
+
+    // Manager notified of changes; null while the player is being loaded
+    private PlayerDataManager owner;
+    // Set on the first change since the change log last stamped this player
+    private volatile boolean changed;
+
     public PlayerData(UUID uuid, String username) {
         this.uuid = uuid;
         this.username = username;
         resetAllStats();
     }
 
+    void attach(PlayerDataManager owner) {
+        this.owner = owner;
+        this.changed = false;
+    }
+
+    /**
+     * Flag this player as changed for the change log. Only the first change since the log
+     * last stamped the player queues it there; later ones cost a volatile read.
+     */
+    void touch() {
+        if (!changed) {
+            PlayerDataManager manager = owner;
+            if (manager != null) {
+                changed = true;
+                manager.markChanged(this);
+            }
+        }
+    }
+
+    /**
+     * Clear the changed flag, returning whether it was set.
+     */
+    boolean takeChanged() {
+        if (changed) {
+            changed = false;
+            return true;
+        }
+        return false;
+    }
+
     public UUID getUuid() {
         return uuid;
     }
@@ -40,27 +98,111 @@ public class PlayerData {
     }
 
     public void startSession() {
-        this.sessionStartTime = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        this.sessionStartTime = now;
+        this.sessionIdleMillis = 0;
+        this.lastSampleTime = 0;
+        this.nextSampleTime = 0;
+        this.lastActivityTime = now;
+        this.idle = false;
+        if (owner != null) {
+            owner.onSessionStart(this);
+        }
     }
 
     public void endSession() {
         if (sessionStartTime > 0) {
             long sessionSeconds = (System.currentTimeMillis() - sessionStartTime) / 1000;
             totalPlaytimeSeconds += sessionSeconds;
+            totalIdleSeconds += Math.min(sessionIdleMillis / 1000, sessionSeconds);
             sessionStartTime = 0;
+            sessionIdleMillis = 0;
+            idle = false;
+            if (owner != null) {
+                owner.onSessionEnd(this);
+            }
+        }
+    }
+
+    /**
+     * Whether the idle detector should sample this player now, once per interval. The first
+     * sample of a session is offset by the UUID so players that join together are spread over
+     * the interval instead of all being sampled in the same run.
+     */
+    public boolean isActivitySampleDue(long now, long intervalMillis) {
+        if (nextSampleTime == 0) {
+            nextSampleTime = now + Math.floorMod(uuid.hashCode(), intervalMillis);
+        }
+        if (now < nextSampleTime) {
+            return false;
+        }
+        // Keep the player's place in the interval, unless the server fell a whole interval behind
+        nextSampleTime += intervalMillis;
+        if (nextSampleTime <= now) {
+            nextSampleTime = now + intervalMillis;
         }
+        return true;
+    }
+
+    /**
+     * Record a position/rotation sample from the idle detector.
+     * Time past the idle timeout without movement or looking around is counted as idle.
+     */
+    public void recordActivitySample(double x, double y, double z, float yaw, float pitch, long idleTimeoutMillis) {
+        if (sessionStartTime <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean active = lastSampleTime == 0
+                || Math.abs(x - lastX) + Math.abs(y - lastY) + Math.abs(z - lastZ) > MOVE_EPSILON
+                || Math.abs(yaw - lastYaw) + Math.abs(pitch - lastPitch) > LOOK_EPSILON;
+
+        if (active) {
+            lastActivityTime = now;
+            if (idle) {
+                // Idle time accrues silently while AFK and counts as one change once the player is back
+                idle = false;
+                touch();
+            }
+        } else {
+            long idleSince = lastActivityTime + idleTimeoutMillis;
+            if (now > idleSince) {
+                sessionIdleMillis += now - Math.max(idleSince, lastSampleTime);
+                idle = true;
+            }
+        }
+
+        lastSampleTime = now;
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+        lastYaw = yaw;
+        lastPitch = pitch;
+    }
+
+    public boolean isIdle() {
+        return idle;
     }
 
     public boolean isOnline() {
         return sessionStartTime > 0;
     }
 
+    /**
+     * Start of the current session in epoch milliseconds, or 0 while offline.
+     */
+    public long getSessionStartMillis() {
+        return sessionStartTime;
+    }
+
     public long getTotalPlaytimeSeconds() {
         return totalPlaytimeSeconds;
     }
 
     public void setTotalPlaytimeSeconds(long seconds) {
         this.totalPlaytimeSeconds = seconds;
+        touch();
     }
 
     public long getCurrentSessionSeconds() {
@@ -74,8 +216,46 @@ public class PlayerData {
         return totalPlaytimeSeconds + getCurrentSessionSeconds();
     }
 
+    public long getTotalIdleSeconds() {
+        return totalIdleSeconds;
+    }
+
+    public void setTotalIdleSeconds(long seconds) {
+        this.totalIdleSeconds = seconds;
+        touch();
+    }
+
+    public long getIdleWithCurrentSession() {
+        return totalIdleSeconds + sessionIdleMillis / 1000;
+    }
+
+    /**
+     * Playtime excluding time spent idle (AFK).
+     */
+    public long getActivePlaytimeSeconds() {
+        return Math.max(0, getTotalWithCurrentSession() - getIdleWithCurrentSession());
+    }
+
+    /**
+     * Playtime used for rankings - active playtime if activeOnly, otherwise wall-clock playtime.
+     */
+    public long getPlaytimeSeconds(boolean activeOnly) {
+        return activeOnly ? getActivePlaytimeSeconds() : getTotalWithCurrentSession();
+    }
+
     public String getFormattedPlaytime() {
-        long total = getTotalWithCurrentSession();
+        return formatDuration(getTotalWithCurrentSession());
+    }
+
+    public String getFormattedActivePlaytime() {
+        return formatDuration(getActivePlaytimeSeconds());
+    }
+
+    public String getFormattedPlaytime(boolean activeOnly) {
+        return formatDuration(getPlaytimeSeconds(activeOnly));
+    }
+
+    private static String formatDuration(long total) {
         long hours = total / 3600;
         long minutes = (total % 3600) / 60;
         long seconds = total % 60;
@@ -102,10 +282,12 @@ public class PlayerData {
 
     public void setDamageDealt(float damageDealt) {
         this.damageDealt = damageDealt;
+        touch();
     }
 
     public void addDamageDealt(float amount) {
         this.damageDealt += amount;
+        touch();
     }
 
     public int getPlayerKills() {
@@ -114,10 +296,12 @@ public class PlayerData {
 
     public void setPlayerKills(int playerKills) {
         this.playerKills = playerKills;
+        touch();
     }
 
     public void incrementPlayerKills() {
         this.playerKills++;
+        touch();
     }
 
     public int getMobKills() {
@@ -126,10 +310,12 @@ public class PlayerData {
 
     public void setMobKills(int mobKills) {
         this.mobKills = mobKills;
+        touch();
     }
 
     public void incrementMobKills() {
         this.mobKills++;
+        touch();
     }
 
     public int getKillCount() {
@@ -142,10 +328,12 @@ public class PlayerData {
 
     public void setDeathCount(int deathCount) {
         this.deathCount = deathCount;
+        touch();
     }
 
     public void incrementDeathCount() {
         this.deathCount++;
+        touch();
     }
 
     public int getBlocksPlaced() {
@@ -154,10 +342,12 @@ public class PlayerData {
 
     public void setBlocksPlaced(int blocksPlaced) {
         this.blocksPlaced = blocksPlaced;
+        touch();
     }
 
     public void incrementBlocksPlaced() {
         this.blocksPlaced++;
+        touch();
     }
 
     public int getBlocksBroken() {
@@ -166,24 +356,67 @@ public class PlayerData {
 
     public void setBlocksBroken(int blocksBroken) {
         this.blocksBroken = blocksBroken;
+        touch();
     }
 
     public void incrementBlocksBroken() {
         this.blocksBroken++;
+        touch();
+    }
+
+    /**
+     * Get the stats partition for a world, or null if the player has no stats there.
+     */
+    public WorldStats getWorldStats(String world) {
+        Map<String, WorldStats> stats = worldStats;
+        return stats != null ? stats.get(world) : null;
+    }
+
+    /**
+     * Get or lazily create the stats partition for a world.
+     */
+    public WorldStats getOrCreateWorldStats(String world) {
+        Map<String, WorldStats> stats = worldStats;
+        if (stats == null) {
+            synchronized (this) {
+                stats = worldStats;
+                if (stats == null) {
+                    stats = new ConcurrentHashMap<>(4);
+                    worldStats = stats;
+                }
+            }
+        }
+        return stats.computeIfAbsent(world, w -> new WorldStats());
+    }
+
+    /**
+     * Get all per-world partitions (world name -> stats).
+     */
+    public Map<String, WorldStats> getAllWorldStats() {
+        Map<String, WorldStats> stats = worldStats;
+        return stats != null ? Collections.unmodifiableMap(stats) : Collections.emptyMap();
     }
 
     /**
      * Reset all statistics to zero.
      */
     public void resetAllStats() {
+        boolean wasOnline = sessionStartTime > 0;
         this.totalPlaytimeSeconds = 0;
         this.sessionStartTime = 0;
+        this.totalIdleSeconds = 0;
+        this.sessionIdleMillis = 0;
         this.damageDealt = 0;
         this.playerKills = 0;
         this.mobKills = 0;
         this.deathCount = 0;
         this.blocksPlaced = 0;
         this.blocksBroken = 0;
+        this.worldStats = null;
+        if (wasOnline && owner != null) {
+            owner.onSessionEnd(this);
+        }
+        touch();
     }
 
     /**
@@ -194,6 +427,10 @@ public class PlayerData {
         this.playerKills = 0;
         this.mobKills = 0;
         this.deathCount = 0;
+        for (WorldStats stats : getAllWorldStats().values()) {
+            stats.resetCombatStats();
+        }
+        touch();
     }
 
     /**
@@ -202,6 +439,10 @@ public class PlayerData {
     public void resetBlockStats() {
         this.blocksPlaced = 0;
         this.blocksBroken = 0;
+        for (WorldStats stats : getAllWorldStats().values()) {
+            stats.resetBlockStats();
+        }
+        touch();
     }
 
     /**
@@ -209,5 +450,8 @@ public class PlayerData {
      */
     public void resetPlaytime() {
         this.totalPlaytimeSeconds = 0;
+        this.totalIdleSeconds = 0;
+        this.sessionIdleMillis = 0;
+        touch();
     }
 }
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hytaletravelers.playerlogger.metrics.PluginMetrics;
 
 import java.io.Reader;
 import java.io.Writer;
@@ -12,6 +13,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 
@@ -23,19 +25,34 @@ public class PlayerDataManager {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private static PlayerDataManager instance;
+    // Step in which online players' playtime is read for rankings and API ETags
+    private static final long LIVE_CLOCK_MILLIS = 10_000;
 
     private final Map<UUID, PlayerData> players = new ConcurrentHashMap<>();
+    private final Map<String, UUID> uuidsByName = new ConcurrentHashMap<>();
+    private final Set<String> worlds = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    // Also the change sequence; seeded from the clock so cursors from a previous run are always behind it
+    private final AtomicLong dataVersion = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicLong rosterVersion = new AtomicLong();
+    private final ChangeLog changeLog;
+    private volatile PlayerIndex index;
     private final Path dataFile;
     private final Gson gson;
 
-    private PlayerDataManager(Path pluginDataFolder) {
+    private PlayerDataManager(Path pluginDataFolder, int changeLogCapacity) {
         this.dataFile = pluginDataFolder.resolve("players.json");
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         load();
+        // Created after loading, so changes are only recorded from here on
+        this.changeLog = new ChangeLog(changeLogCapacity, dataVersion, players);
     }
 
-    public static void init(Path pluginDataFolder) {
-        instance = new PlayerDataManager(pluginDataFolder);
+    /**
+     * @param changeLogCapacity how many of the latest changes (one per player) are kept for incremental sync
+     */
+    public static void init(Path pluginDataFolder, int changeLogCapacity) {
+        instance = new PlayerDataManager(pluginDataFolder, changeLogCapacity);
     }
 
     public static PlayerDataManager getInstance() {
@@ -46,7 +63,14 @@ public class PlayerDataManager {
      * Get or create player data for the given UUID.
      */
     public PlayerData getOrCreate(UUID uuid, String username) {
-        return players.computeIfAbsent(uuid, id -> new PlayerData(id, username));
+        return players.computeIfAbsent(uuid, id -> {
+            PlayerData pd = new PlayerData(id, username);
+            pd.attach(this);
+            indexName(pd);
+            pd.touch();
+            rosterVersion.incrementAndGet();
+            return pd;
+        });
     }
 
     /**
@@ -60,10 +84,11 @@ public class PlayerDataManager {
      * Get player data by username (case-insensitive).
      */
     public PlayerData getByUsername(String username) {
-        return players.values().stream()
-                .filter(p -> p.getUsername().equalsIgnoreCase(username))
-                .findFirst()
-                .orElse(null);
+        if (username == null) {
+            return null;
+        }
+        UUID uuid = uuidsByName.get(username.toLowerCase(Locale.ROOT));
+        return uuid != null ? players.get(uuid) : null;
     }
 
     /**
@@ -73,6 +98,80 @@ public class PlayerDataManager {
         return Collections.unmodifiableCollection(players.values());
     }
 
+    /**
+     * Get all players with an active session.
+     */
+    public List<PlayerData> getOnlinePlayers() {
+        List<PlayerData> online = new ArrayList<>(onlinePlayers.size());
+        for (UUID uuid : onlinePlayers) {
+            PlayerData player = players.get(uuid);
+            if (player != null) {
+                online.add(player);
+            }
+        }
+        return online;
+    }
+
+    /**
+     * Get the sorted index over all tracked players, rebuilding it if players were added or removed.
+     */
+    public PlayerIndex getIndex() {
+        long version = rosterVersion.get();
+        PlayerIndex current = index;
+        if (current == null || current.getVersion() != version) {
+            current = new PlayerIndex(players.values(), version);
+            index = current;
+        }
+        return current;
+    }
+
+    /**
+     * Get all players ranked by the given sort, reusing the ranking until stats change.
+     */
+    public PlayerIndex.Ranking getRanking(PlayerSort sort) {
+        return getRanking(sort, null, null);
+    }
+
+    /**
+     * Get the players matching the filters ranked by the given sort, reusing the ranking until stats change.
+     *
+     * @param world  only players with stats in this world, ranked by their stats there; null for all
+     * @param online only online (true) or offline (false) players; null for all
+     */
+    public PlayerIndex.Ranking getRanking(PlayerSort sort, String world, Boolean online) {
+        if (world != null && !worlds.contains(world)) {
+            // Not cached, so arbitrary world names can't grow the index
+            return PlayerIndex.Ranking.of(sort, List.of(), sort::keyOf, 0);
+        }
+        return getIndex().ranking(sort, world, online, getDataVersion(), getLiveClock());
+    }
+
+    /**
+     * Current step of the live clock while anyone is online, or 0 when nobody is. Online
+     * players' playtime grows without changing the data version, so playtime rankings are
+     * rebuilt, and API ETags change, once per step.
+     */
+    public long getLiveClock() {
+        return onlinePlayers.isEmpty() ? 0 : System.currentTimeMillis() / LIVE_CLOCK_MILLIS;
+    }
+
+    /**
+     * Get a player's stats partition for a world, allocating it on first use.
+     */
+    public WorldStats getWorldStats(PlayerData player, String world) {
+        worlds.add(world);
+        return player.getOrCreateWorldStats(world);
+    }
+
+    /**
+     * Get the names of all worlds any player has stats in, sorted alphabetically.
+     */
+    public List<String> getWorldNames() {
+        List<String> names = new ArrayList<>(worlds);
+        Collections.sort(names);
+        return names;
+    }
+
     /**
      * Get total number of tracked players.
      */
@@ -84,7 +183,49 @@ public class PlayerDataManager {
      * Get number of currently online players.
      */
     public int getOnlineCount() {
-        return (int) players.values().stream().filter(PlayerData::isOnline).count();
+        return onlinePlayers.size();
+    }
+
+    /**
+     * Version number that increases whenever any player's stats, session or the player set change.
+     * Playtime of online players also grows with wall-clock time, which this does not track.
+     * This is also the change sequence used by {@link #getChangeLog()}; it is advanced when read,
+     * at most once a second, so a busy server doesn't invalidate caches on every stat change.
+     */
+    public long getDataVersion() {
+        return changeLog.getSequence();
+    }
+
+    /**
+     * Get the log of recently changed players, for consumers that sync incrementally.
+     */
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    private void indexName(PlayerData player) {
+        // A name reused by a newer account points at the one seen last
+        uuidsByName.put(player.getUsername().toLowerCase(Locale.ROOT), player.getUuid());
+    }
+
+    /**
+     * Called by a player on its first change since the change log last stamped it.
+     */
+    void markChanged(PlayerData player) {
+        ChangeLog log = changeLog;
+        if (log != null) {
+            log.markPending(player);
+        }
+    }
+
+    void onSessionStart(PlayerData player) {
+        onlinePlayers.add(player.getUuid());
+        player.touch();
+    }
+
+    void onSessionEnd(PlayerData player) {
+        onlinePlayers.remove(player.getUuid());
+        player.touch();
     }
 
     /**
@@ -93,6 +234,11 @@ public class PlayerDataManager {
     public boolean removePlayer(UUID uuid) {
         PlayerData removed = players.remove(uuid);
         if (removed != null) {
+            removed.attach(null);
+            uuidsByName.remove(removed.getUsername().toLowerCase(Locale.ROOT), uuid);
+            onlinePlayers.remove(uuid);
+            changeLog.recordRemoval(uuid);
+            rosterVersion.incrementAndGet();
             save();
             LOGGER.at(Level.INFO).log("[PlayerLogger] Removed player: %s", removed.getUsername());
             return true;
@@ -146,7 +292,14 @@ public class PlayerDataManager {
      */
     public int wipeAllPlayers() {
         int count = players.size();
+        for (PlayerData pd : players.values()) {
+            pd.attach(null);
+        }
         players.clear();
+        uuidsByName.clear();
+        onlinePlayers.clear();
+        changeLog.reset();
+        rosterVersion.incrementAndGet();
         save();
         LOGGER.at(Level.INFO).log("[PlayerLogger] Wiped all player data (%d players)", count);
         return count;
@@ -161,9 +314,23 @@ public class PlayerDataManager {
             case KILLS -> {
                 player.setPlayerKills(0);
                 player.setMobKills(0);
+                for (WorldStats stats : player.getAllWorldStats().values()) {
+                    stats.setPlayerKills(0);
+                    stats.setMobKills(0);
+                }
+            }
+            case DEATHS -> {
+                player.setDeathCount(0);
+                for (WorldStats stats : player.getAllWorldStats().values()) {
+                    stats.setDeathCount(0);
+                }
+            }
+            case DAMAGE -> {
+                player.setDamageDealt(0);
+                for (WorldStats stats : player.getAllWorldStats().values()) {
+                    stats.setDamageDealt(0);
+                }
             }
-            case DEATHS -> player.setDeathCount(0);
-            case DAMAGE -> player.setDamageDealt(0);
         }
     }
 
@@ -171,6 +338,7 @@ public class PlayerDataManager {
      * Save all player data to disk.
      */
     public void save() {
+        long start = System.nanoTime();
         try {
             Files.createDirectories(dataFile.getParent());
 
@@ -183,9 +351,13 @@ public class PlayerDataManager {
                 gson.toJson(toSave, writer);
             }
 
+            PluginMetrics.SAVE_BYTES.set(Files.size(dataFile));
             LOGGER.at(Level.INFO).log("[PlayerLogger] Saved %d players", toSave.size());
         } catch (Exception e) {
+            PluginMetrics.SAVE_FAILURES.increment();
             LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to save player data");
+        } finally {
+            PluginMetrics.SAVE_DURATION.observeNanos(System.nanoTime() - start);
         }
     }
 
@@ -206,9 +378,12 @@ public class PlayerDataManager {
 
                     try {
                         PlayerData pd = sp.toPlayerData();
+                        pd.attach(this);
                         players.put(pd.getUuid(), pd);
+                        indexName(pd);
+                        worlds.addAll(pd.getAllWorldStats().keySet());
 
-                            if (sp.needsMigration()) {
+                        if (sp.needsMigration()) {
                             migrated++;
                         }
                     } catch (Exception e) {
@@ -263,18 +438,20 @@ public class PlayerDataManager {
      * DTO for JSON serialization. Missing fields default to zero.
      */
     private static class SavedPlayer {
-        private static final int CURRENT_VERSION = 1;
+        private static final int CURRENT_VERSION = 3;
 
         Integer version;  // Nullable to detect old data without version field
         String uuid;
         String username;
         long playtimeSeconds;
+        long idleSeconds;
         float damageDealt;
         int playerKills;
         int mobKills;
         int blocksPlaced;
         int blocksBroken;
         int deathCount;
+        Map<String, SavedWorldStats> worlds;  // Omitted when the player has no per-world stats
 
         static SavedPlayer from(PlayerData pd) {
             SavedPlayer sp = new SavedPlayer();
@@ -282,12 +459,21 @@ public class PlayerDataManager {
             sp.uuid = pd.getUuid().toString();
             sp.username = pd.getUsername();
             sp.playtimeSeconds = pd.getTotalWithCurrentSession();
+            sp.idleSeconds = pd.getIdleWithCurrentSession();
             sp.damageDealt = pd.getDamageDealt();
             sp.playerKills = pd.getPlayerKills();
             sp.mobKills = pd.getMobKills();
             sp.blocksPlaced = pd.getBlocksPlaced();
             sp.blocksBroken = pd.getBlocksBroken();
             sp.deathCount = pd.getDeathCount();
+
+            Map<String, WorldStats> worldStats = pd.getAllWorldStats();
+            if (!worldStats.isEmpty()) {
+                sp.worlds = new LinkedHashMap<>();
+                for (Map.Entry<String, WorldStats> entry : worldStats.entrySet()) {
+                    sp.worlds.put(entry.getKey(), SavedWorldStats.from(entry.getValue()));
+                }
+            }
             return sp;
         }
 
@@ -296,6 +482,7 @@ public class PlayerDataManager {
             PlayerData pd = new PlayerData(id, username != null ? username : "Unknown");
 
             pd.setTotalPlaytimeSeconds(playtimeSeconds);
+            pd.setTotalIdleSeconds(idleSeconds);
             pd.setDamageDealt(damageDealt);
             pd.setPlayerKills(playerKills);
             pd.setMobKills(mobKills);
@@ -303,6 +490,14 @@ public class PlayerDataManager {
             pd.setBlocksBroken(blocksBroken);
             pd.setDeathCount(deathCount);
 
+            if (worlds != null) {
+                for (Map.Entry<String, SavedWorldStats> entry : worlds.entrySet()) {
+                    if (entry.getKey() != null && entry.getValue() != null) {
+                        entry.getValue().applyTo(pd.getOrCreateWorldStats(entry.getKey()));
+                    }
+                }
+            }
+
             return pd;
         }
 
@@ -313,4 +508,36 @@ public class PlayerDataManager {
             return version == null || version < CURRENT_VERSION;
         }
     }
+
+    /**
+     * Per-world stats DTO nested inside SavedPlayer.
+     */
+    private static class SavedWorldStats {
+        float damageDealt;
+        int playerKills;
+        int mobKills;
+        int blocksPlaced;
+        int blocksBroken;
+        int deathCount;
+
+        static SavedWorldStats from(WorldStats ws) {
+            SavedWorldStats sw = new SavedWorldStats();
+            sw.damageDealt = ws.getDamageDealt();
+            sw.playerKills = ws.getPlayerKills();
+            sw.mobKills = ws.getMobKills();
+            sw.blocksPlaced = ws.getBlocksPlaced();
+            sw.blocksBroken = ws.getBlocksBroken();
+            sw.deathCount = ws.getDeathCount();
+            return sw;
+        }
+
+        void applyTo(WorldStats ws) {
+            ws.setDamageDealt(damageDealt);
+            ws.setPlayerKills(playerKills);
+            ws.setMobKills(mobKills);
+            ws.setBlocksPlaced(blocksPlaced);
+            ws.setBlocksBroken(blocksBroken);
+            ws.setDeathCount(deathCount);
+        }
+    }
 }
@@ -0,0 +1,267 @@
+package com.hytaletravelers.playerlogger.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sorted, read-only views over the tracked players.
+ * PlayerDataManager builds one index per roster (set of players); rankings by stat are
+ * built lazily and reused until the data version changes, and playtime rankings are
+ * rebuilt at most once per second while players are online. Rankings filtered by world
+ * or online status are cached the same way, next to the full ones.
+ */
+public final class PlayerIndex {
+
+    private final long version;
+    private final PlayerData[] byName;
+    private final String[] names;
+    // Keyed by sort, world and online filter
+    private final Map<String, Ranking> rankings = new ConcurrentHashMap<>();
+
+    PlayerIndex(Collection<PlayerData> players, long version) {
+        this.version = version;
+
+        PlayerData[] all = players.toArray(new PlayerData[0]);
+        String[] keys = new String[all.length];
+        Integer[] order = new Integer[all.length];
+        for (int i = 0; i < all.length; i++) {
+            keys[i] = nameKey(all[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+
+        this.byName = new PlayerData[all.length];
+        this.names = new String[all.length];
+        for (int i = 0; i < order.length; i++) {
+            byName[i] = all[order[i]];
+            names[i] = keys[order[i]];
+        }
+    }
+
+    /**
+     * Roster version this index was built for.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return byName.length;
+    }
+
+    /**
+     * All players in name order.
+     */
+    public List<PlayerData> all() {
+        return Collections.unmodifiableList(Arrays.asList(byName));
+    }
+
+    /**
+     * Players whose username starts with the prefix (case-insensitive), in name order.
+     */
+    public List<PlayerData> withNamePrefix(String prefix) {
+        String p = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(p);
+        int to = lowerBound(p + Character.MAX_VALUE);
+        return Collections.unmodifiableList(Arrays.asList(byName).subList(from, to));
+    }
+
+    /**
+     * Full ranking of all players by the given sort.
+     *
+     * @param dataVersion current data version; rankings are rebuilt when it changes
+     * @param clock       current live clock step while players are online, 0 otherwise;
+     *                    time-dependent rankings are also rebuilt when it changes
+     */
+    public Ranking ranking(PlayerSort sort, long dataVersion, long clock) {
+        return ranking(sort, null, null, dataVersion, clock);
+    }
+
+    /**
+     * Ranking of the players matching the filters, cached like the full rankings.
+     * Callers should only pass worlds that exist, since every distinct filter is kept.
+     *
+     * @param world  only players with stats in this world, ranked by their stats there; null for all
+     * @param online only online (true) or offline (false) players; null for all
+     */
+    public Ranking ranking(PlayerSort sort, String world, Boolean online, long dataVersion, long clock) {
+        long needed = sort.isTimeDependent() ? clock : 0;
+        String key = sort.name() + '\u0000' + (world != null ? world : "") + '\u0000' + online;
+        Ranking ranking = rankings.get(key);
+        if (ranking == null || ranking.dataVersion != dataVersion || ranking.clock != needed) {
+            ranking = build(sort, world, online, needed);
+            ranking.dataVersion = dataVersion;
+            rankings.put(key, ranking);
+        }
+        return ranking;
+    }
+
+    private Ranking build(PlayerSort sort, String world, Boolean online, long clock) {
+        if (world == null && online == null) {
+            return Ranking.of(sort, Arrays.asList(byName), sort::keyOf, clock);
+        }
+
+        List<PlayerData> matches = new ArrayList<>();
+        for (PlayerData player : byName) {
+            if ((online == null || player.isOnline() == online) && (world == null || player.getWorldStats(world) != null)) {
+                matches.add(player);
+            }
+        }
+        if (world == null) {
+            return Ranking.of(sort, matches, sort::keyOf, clock);
+        }
+        return Ranking.of(sort, matches, player -> sort.keyOf(player, player.getWorldStats(world)), clock);
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = names.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (names[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static String nameKey(PlayerData player) {
+        return player.getUsername().toLowerCase(Locale.ROOT) + '\u0000' + player.getUuid();
+    }
+
+    /**
+     * Players ordered ascending by (sort key, tie-breaker), with keys captured at build time
+     * so concurrent stat updates can't reorder it. Read descending by walking it backwards.
+     */
+    public static final class Ranking {
+        private final PlayerData[] players;
+        private final long[] keys;
+        private final String[] ties;
+        private final long clock;
+        private long dataVersion = -1;
+
+        private Ranking(PlayerData[] players, long[] keys, String[] ties, long clock) {
+            this.players = players;
+            this.keys = keys;
+            this.ties = ties;
+            this.clock = clock;
+        }
+
+        /**
+         * Rank an arbitrary set of players, e.g. a filtered subset.
+         */
+        public static Ranking of(PlayerSort sort, Collection<PlayerData> source, ToLongFunction<PlayerData> key, long clock) {
+            int n = source.size();
+            PlayerData[] all = source.toArray(new PlayerData[0]);
+            long[] allKeys = new long[n];
+            String[] allTies = new String[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                allKeys[i] = key.applyAsLong(all[i]);
+                allTies[i] = sort == PlayerSort.NAME ? nameKey(all[i]) : all[i].getUuid().toString();
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int c = Long.compare(allKeys[a], allKeys[b]);
+                return c != 0 ? c : allTies[a].compareTo(allTies[b]);
+            });
+
+            PlayerData[] players = new PlayerData[n];
+            long[] keys = new long[n];
+            String[] ties = new String[n];
+            for (int i = 0; i < n; i++) {
+                players[i] = all[order[i]];
+                keys[i] = allKeys[order[i]];
+                ties[i] = allTies[order[i]];
+            }
+            return new Ranking(players, keys, ties, clock);
+        }
+
+        public int size() {
+            return players.length;
+        }
+
+        public PlayerData get(int position, boolean descending) {
+            return players[index(position, descending)];
+        }
+
+        public Cursor cursorAt(int position, boolean descending) {
+            int i = index(position, descending);
+            return new Cursor(keys[i], ties[i]);
+        }
+
+        /**
+         * Position (in the requested direction) of the first player that comes after the cursor.
+         * Stable under changes: players that moved are simply seen at their new position.
+         */
+        public int positionAfter(Cursor cursor, boolean descending) {
+            if (!descending) {
+                return firstIndex(cursor, true);
+            }
+            return players.length - firstIndex(cursor, false);
+        }
+
+        private int index(int position, boolean descending) {
+            return descending ? players.length - 1 - position : position;
+        }
+
+        /**
+         * First index whose entry is greater than (strict) or at least (non-strict) the cursor.
+         */
+        private int firstIndex(Cursor cursor, boolean strict) {
+            int lo = 0;
+            int hi = players.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = Long.compare(keys[mid], cursor.key);
+                if (c == 0) {
+                    c = ties[mid].compareTo(cursor.tie);
+                }
+                if (strict ? c <= 0 : c < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Opaque position in a ranking, handed to clients for cursor-based paging.
+     */
+    public static final class Cursor {
+        private final long key;
+        private final String tie;
+
+        Cursor(long key, String tie) {
+            this.key = key;
+            this.tie = tie;
+        }
+
+        public String encode() {
+            String raw = key + ":" + tie;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decode a cursor string, or return null if it is malformed.
+         */
+        public static Cursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                if (sep <= 0) {
+                    return null;
+                }
+                return new Cursor(Long.parseLong(raw.substring(0, sep)), raw.substring(sep + 1));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
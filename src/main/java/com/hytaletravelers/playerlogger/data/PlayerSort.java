@@ -0,0 +1,76 @@
+package com.hytaletravelers.playerlogger.data;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Orderings the player index can serve, each mapping a player to a long sort key.
+ */
+public enum PlayerSort {
+    PLAYTIME("playtime", true, PlayerData::getTotalWithCurrentSession, null),
+    ACTIVE_PLAYTIME("activePlaytime", true, PlayerData::getActivePlaytimeSeconds, null),
+    KILLS("kills", false, PlayerData::getKillCount, WorldStats::getKillCount),
+    PLAYER_KILLS("playerKills", false, PlayerData::getPlayerKills, WorldStats::getPlayerKills),
+    MOB_KILLS("mobKills", false, PlayerData::getMobKills, WorldStats::getMobKills),
+    DEATHS("deaths", false, PlayerData::getDeathCount, WorldStats::getDeathCount),
+    // Damage is never negative, so its float bits order the same way as its value
+    DAMAGE("damage", false, pd -> damageKey(pd.getDamageDealt()), ws -> damageKey(ws.getDamageDealt())),
+    BLOCKS_PLACED("blocksPlaced", false, PlayerData::getBlocksPlaced, WorldStats::getBlocksPlaced),
+    BLOCKS_BROKEN("blocksBroken", false, PlayerData::getBlocksBroken, WorldStats::getBlocksBroken),
+    NAME("name", false, pd -> 0, null);
+
+    private final String paramName;
+    private final boolean timeDependent;
+    private final ToLongFunction<PlayerData> key;
+    private final ToLongFunction<WorldStats> worldKey;
+
+    PlayerSort(String paramName, boolean timeDependent, ToLongFunction<PlayerData> key,
+               ToLongFunction<WorldStats> worldKey) {
+        this.paramName = paramName;
+        this.timeDependent = timeDependent;
+        this.key = key;
+        this.worldKey = worldKey;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    /**
+     * Whether the key changes with wall-clock time for online players.
+     */
+    public boolean isTimeDependent() {
+        return timeDependent;
+    }
+
+    public long keyOf(PlayerData player) {
+        return key.applyAsLong(player);
+    }
+
+    /**
+     * Sort key within one world. Stats that aren't partitioned by world (playtime, name)
+     * fall back to the player's combined value.
+     */
+    public long keyOf(PlayerData player, WorldStats worldStats) {
+        return worldKey != null && worldStats != null ? worldKey.applyAsLong(worldStats) : key.applyAsLong(player);
+    }
+
+    private static long damageKey(float damage) {
+        return Float.floatToIntBits(Math.max(0, damage));
+    }
+
+    /**
+     * Natural direction: highest first for stats, alphabetical for names.
+     */
+    public boolean isDescendingByDefault() {
+        return this != NAME;
+    }
+
+    public static PlayerSort fromParam(String name) {
+        for (PlayerSort sort : values()) {
+            if (sort.paramName.equalsIgnoreCase(name) || sort.name().equalsIgnoreCase(name)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+}
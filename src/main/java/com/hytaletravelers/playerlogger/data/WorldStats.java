@@ -0,0 +1,109 @@
+package com.hytaletravelers.playerlogger.data;
+
+/**
+ * Combat and block counters for a single player in a single world.
+ * Allocated lazily the first time the player does something tracked in that world.
+ */
+public class WorldStats {
+
+    private float damageDealt;
+    private int playerKills;
+    private int mobKills;
+    private int deathCount;
+    private int blocksPlaced;
+    private int blocksBroken;
+
+    public float getDamageDealt() {
+        return damageDealt;
+    }
+
+    public void setDamageDealt(float damageDealt) {
+        this.damageDealt = damageDealt;
+    }
+
+    public void addDamageDealt(float amount) {
+        this.damageDealt += amount;
+    }
+
+    public int getPlayerKills() {
+        return playerKills;
+    }
+
+    public void setPlayerKills(int playerKills) {
+        this.playerKills = playerKills;
+    }
+
+    public void incrementPlayerKills() {
+        this.playerKills++;
+    }
+
+    public int getMobKills() {
+        return mobKills;
+    }
+
+    public void setMobKills(int mobKills) {
+        this.mobKills = mobKills;
+    }
+
+    public void incrementMobKills() {
+        this.mobKills++;
+    }
+
+    public int getKillCount() {
+        return playerKills + mobKills;
+    }
+
+    public int getDeathCount() {
+        return deathCount;
+    }
+
+    public void setDeathCount(int deathCount) {
+        this.deathCount = deathCount;
+    }
+
+    public void incrementDeathCount() {
+        this.deathCount++;
+    }
+
+    public int getBlocksPlaced() {
+        return blocksPlaced;
+    }
+
+    public void setBlocksPlaced(int blocksPlaced) {
+        this.blocksPlaced = blocksPlaced;
+    }
+
+    public void incrementBlocksPlaced() {
+        this.blocksPlaced++;
+    }
+
+    public int getBlocksBroken() {
+        return blocksBroken;
+    }
+
+    public void setBlocksBroken(int blocksBroken) {
+        this.blocksBroken = blocksBroken;
+    }
+
+    public void incrementBlocksBroken() {
+        this.blocksBroken++;
+    }
+
+    /**
+     * Reset combat-related statistics (kills, deaths, damage).
+     */
+    public void resetCombatStats() {
+        this.damageDealt = 0;
+        this.playerKills = 0;
+        this.mobKills = 0;
+        this.deathCount = 0;
+    }
+
+    /**
+     * Reset block-related statistics (placed, broken).
+     */
+    public void resetBlockStats() {
+        this.blocksPlaced = 0;
+        this.blocksBroken = 0;
+    }
+}
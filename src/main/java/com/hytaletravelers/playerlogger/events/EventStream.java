@@ -0,0 +1,198 @@
+package com.hytaletravelers.playerlogger.events;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live stat events (joins, leaves, kills, deaths, stat deltas) fanned out to subscribers.
+ * Events go into one bounded ring buffer; each subscriber keeps its own cursor into it.
+ * A subscriber that falls more than a full buffer behind is dropped instead of slowing
+ * down publishers or holding old events in memory.
+ */
+public class EventStream {
+
+    private final StatEvent[] ring;
+    private final int maxSubscribers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder droppedSubscribers = new LongAdder();
+
+    // Id of the newest event, guarded by lock; ids start at 1
+    private long head;
+
+    public EventStream(int capacity, int maxSubscribers) {
+        this.ring = new StatEvent[Math.max(16, capacity)];
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+    }
+
+    /**
+     * Publish an event to all subscribers.
+     * Does nothing while nobody is subscribed, so tracking code can call it unconditionally.
+     */
+    public void publish(String type, Map<String, Object> data) {
+        if (subscriberCount.get() == 0) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            long id = head + 1;
+            ring[(int) (id % ring.length)] = new StatEvent(id, type, System.currentTimeMillis(), data);
+            head = id;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        publishedEvents.increment();
+    }
+
+    /**
+     * Open a subscription, or return null if the subscriber limit is reached.
+     *
+     * @param lastEventId id of the last event the client saw (SSE Last-Event-ID); events after it are
+     *                    replayed if still buffered, otherwise the subscription starts at the newest event
+     * @param onDrop      called if the subscriber is dropped for falling too far behind,
+     *                    so a reader blocked on a stalled connection can be unblocked
+     */
+    public Subscription subscribe(long lastEventId, Runnable onDrop) {
+        int count;
+        do {
+            count = subscriberCount.get();
+            if (count >= maxSubscribers) {
+                return null;
+            }
+        } while (!subscriberCount.compareAndSet(count, count + 1));
+
+        long start;
+        lock.lock();
+        try {
+            boolean replayable = lastEventId > 0 && lastEventId <= head && head - lastEventId < ring.length;
+            start = replayable ? lastEventId : head;
+        } finally {
+            lock.unlock();
+        }
+
+        Subscription subscription = new Subscription(start, onDrop);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Drop subscribers that have fallen a full buffer behind.
+     * Called periodically; readers also notice on their own the next time they poll.
+     */
+    public void dropLaggingSubscribers() {
+        long newest;
+        lock.lock();
+        try {
+            newest = head;
+        } finally {
+            lock.unlock();
+        }
+        for (Subscription subscription : subscriptions) {
+            if (newest - subscription.cursor > ring.length) {
+                subscription.drop();
+            }
+        }
+    }
+
+    /**
+     * Start an event payload identifying the player it is about.
+     */
+    public static Map<String, Object> playerPayload(PlayerData player) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("uuid", player.getUuid().toString());
+        data.put("username", player.getUsername());
+        return data;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getPublishedEvents() {
+        return publishedEvents.sum();
+    }
+
+    public long getDroppedSubscribers() {
+        return droppedSubscribers.sum();
+    }
+
+    /**
+     * One subscriber's position in the stream. Not thread-safe; owned by a single reader.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Runnable onDrop;
+        private volatile long cursor;
+        private volatile boolean closed;
+
+        private Subscription(long cursor, Runnable onDrop) {
+            this.cursor = cursor;
+            this.onDrop = onDrop;
+        }
+
+        /**
+         * Wait up to the timeout for events after this subscriber's cursor.
+         *
+         * @return up to max events (empty on timeout), or null if the subscriber fell too far
+         *         behind and was dropped
+         */
+        public List<StatEvent> next(int max, long timeoutMillis) throws InterruptedException {
+            if (closed) {
+                return null;
+            }
+
+            lock.lock();
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (head == cursor && remaining > 0 && !closed) {
+                    remaining = published.awaitNanos(remaining);
+                }
+                if (closed) {
+                    return null;
+                }
+                if (head - cursor > ring.length) {
+                    drop();
+                    return null;
+                }
+
+                int count = (int) Math.min(max, head - cursor);
+                List<StatEvent> events = new ArrayList<>(count);
+                for (long id = cursor + 1; id <= cursor + count; id++) {
+                    events.add(ring[(int) (id % ring.length)]);
+                }
+                cursor += count;
+                return events;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drop() {
+            if (subscriptions.remove(this)) {
+                closed = true;
+                subscriberCount.decrementAndGet();
+                droppedSubscribers.increment();
+                onDrop.run();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (subscriptions.remove(this)) {
+                closed = true;
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
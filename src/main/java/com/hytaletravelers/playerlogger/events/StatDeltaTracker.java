@@ -0,0 +1,79 @@
+package com.hytaletravelers.playerlogger.events;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+
+import java.util.*;
+
+/**
+ * Turns online players' stat changes into periodic "stats" events.
+ * Remembers the counters last sent for each online player and only publishes
+ * players whose counters moved since then, with the change and the new totals.
+ */
+public class StatDeltaTracker {
+    private static final String[] FIELDS = {
+            "playerKills", "mobKills", "deathCount", "blocksPlaced", "blocksBroken"
+    };
+
+    private final Map<UUID, long[]> lastSent = new HashMap<>();
+
+    /**
+     * Publish deltas for every online player whose stats changed. Called from a single scheduler thread.
+     */
+    public void publishDeltas(EventStream stream, PlayerDataManager manager) {
+        if (stream.getSubscriberCount() == 0) {
+            lastSent.clear();
+            return;
+        }
+
+        Set<UUID> seen = new HashSet<>();
+        for (PlayerData pd : manager.getOnlinePlayers()) {
+            seen.add(pd.getUuid());
+            long[] current = snapshot(pd);
+            long[] previous = lastSent.put(pd.getUuid(), current);
+            if (previous == null) {
+                continue;
+            }
+
+            Map<String, Object> changes = new LinkedHashMap<>();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (current[i] != previous[i]) {
+                    changes.put(FIELDS[i], current[i] - previous[i]);
+                }
+            }
+            float damage = Float.intBitsToFloat((int) current[FIELDS.length]);
+            float previousDamage = Float.intBitsToFloat((int) previous[FIELDS.length]);
+            if (damage != previousDamage) {
+                changes.put("damageDealt", damage - previousDamage);
+            }
+            if (changes.isEmpty()) {
+                continue;
+            }
+
+            Map<String, Object> data = EventStream.playerPayload(pd);
+            data.put("changes", changes);
+            data.put("playtimeSeconds", pd.getTotalWithCurrentSession());
+            data.put("activePlaytimeSeconds", pd.getActivePlaytimeSeconds());
+            data.put("playerKills", pd.getPlayerKills());
+            data.put("mobKills", pd.getMobKills());
+            data.put("deathCount", pd.getDeathCount());
+            data.put("damageDealt", pd.getDamageDealt());
+            data.put("blocksPlaced", pd.getBlocksPlaced());
+            data.put("blocksBroken", pd.getBlocksBroken());
+            stream.publish("stats", data);
+        }
+
+        lastSent.keySet().retainAll(seen);
+    }
+
+    private static long[] snapshot(PlayerData pd) {
+        return new long[] {
+                pd.getPlayerKills(),
+                pd.getMobKills(),
+                pd.getDeathCount(),
+                pd.getBlocksPlaced(),
+                pd.getBlocksBroken(),
+                Float.floatToIntBits(pd.getDamageDealt())
+        };
+    }
+}
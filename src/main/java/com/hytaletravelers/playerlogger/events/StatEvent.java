@@ -0,0 +1,57 @@
+package com.hytaletravelers.playerlogger.events;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One entry in the live event stream.
+ * The SSE frame is encoded once, on first delivery, and shared by every subscriber.
+ */
+public final class StatEvent {
+    private static final Gson GSON = new Gson();
+
+    private final long id;
+    private final String type;
+    private final long timestamp;
+    private final Map<String, Object> data;
+    private volatile byte[] frame;
+
+    StatEvent(long id, String type, long timestamp, Map<String, Object> data) {
+        this.id = id;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.data = data;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Encode as a Server-Sent Events frame (id, event and data lines).
+     */
+    public byte[] toFrame() {
+        byte[] encoded = frame;
+        if (encoded == null) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("type", type);
+            payload.put("timestamp", timestamp);
+            payload.putAll(data);
+            String text = "id: " + id + "\nevent: " + type + "\ndata: " + GSON.toJson(payload) + "\n\n";
+            encoded = text.getBytes(StandardCharsets.UTF_8);
+            frame = encoded;
+        }
+        return encoded;
+    }
+}
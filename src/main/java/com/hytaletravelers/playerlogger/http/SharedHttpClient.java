@@ -0,0 +1,43 @@
+package com.hytaletravelers.playerlogger.http;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * The one HttpClient used for all outbound requests: cloud sync pushes, Discord webhooks and update checks.
+ * Sharing it keeps connections (and their TLS sessions) alive between requests, and lets
+ * HTTP/2 servers multiplex them over a single connection; HTTP/1.1 servers get keep-alive.
+ * Redirects aren't followed automatically so callers can re-send POST bodies and remember moved targets.
+ */
+public final class SharedHttpClient {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static HttpClient client;
+
+    private SharedHttpClient() {}
+
+    /**
+     * Get the shared client, creating it on first use.
+     */
+    public static synchronized HttpClient get() {
+        if (client == null) {
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(CONNECT_TIMEOUT)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+        }
+        return client;
+    }
+
+    /**
+     * Close pooled connections and abort requests still in flight. Called on plugin shutdown;
+     * a later {@link #get()} starts a fresh client.
+     */
+    public static synchronized void shutdown() {
+        if (client != null) {
+            client.shutdownNow();
+            client = null;
+        }
+    }
+}
@@ -8,8 +8,10 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.events.EventStream;
 import com.hytaletravelers.playerlogger.webhook.DiscordWebhookService;
 
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -40,6 +42,13 @@ public class PlayerListener {
 
             LOGGER.at(Level.INFO).log("[PlayerLogger] %s joined (Total: %s)", username, data.getFormattedPlaytime());
 
+            EventStream events = PlayerLoggerPlugin.getInstance().getEventStream();
+            if (events != null) {
+                Map<String, Object> payload = EventStream.playerPayload(data);
+                payload.put("playtimeSeconds", data.getTotalWithCurrentSession());
+                events.publish("join", payload);
+            }
+
             // Send webhook notification
             DiscordWebhookService webhook = PlayerLoggerPlugin.getInstance().getWebhookService();
             if (webhook != null) {
@@ -61,10 +70,19 @@ public class PlayerListener {
             PlayerData data = PlayerDataManager.getInstance().get(uuid);
             if (data != null) {
                 String sessionTime = data.getFormattedSessionTime();
+                long sessionSeconds = data.getCurrentSessionSeconds();
                 data.endSession();
                 LOGGER.at(Level.INFO).log("[PlayerLogger] %s left (Total: %s)", data.getUsername(), data.getFormattedPlaytime());
                 PlayerDataManager.getInstance().save();
 
+                EventStream events = PlayerLoggerPlugin.getInstance().getEventStream();
+                if (events != null) {
+                    Map<String, Object> payload = EventStream.playerPayload(data);
+                    payload.put("sessionSeconds", sessionSeconds);
+                    payload.put("playtimeSeconds", data.getTotalWithCurrentSession());
+                    events.publish("leave", payload);
+                }
+
                 // Send webhook notification
                 DiscordWebhookService webhook = PlayerLoggerPlugin.getInstance().getWebhookService();
                 if (webhook != null) {
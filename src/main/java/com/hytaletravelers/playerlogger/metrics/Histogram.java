@@ -0,0 +1,75 @@
+package com.hytaletravelers.playerlogger.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with fixed bucket bounds, in the shape Prometheus expects.
+ * Recording a value is a bucket search plus three adder increments.
+ */
+public class Histogram {
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    /**
+     * @param bounds upper bucket bounds in ascending order; a +Inf bucket is added automatically
+     */
+    public Histogram(double... bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Bucket bounds (in seconds) suited to request and I/O latencies, from 1ms to 10s.
+     */
+    public static Histogram latency() {
+        return new Histogram(0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10);
+    }
+
+    public void observe(double value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Record a duration measured with System.nanoTime(), in seconds.
+     */
+    public void observeNanos(long nanos) {
+        observe(nanos / 1_000_000_000.0);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    double[] bounds() {
+        return bounds;
+    }
+
+    /**
+     * Cumulative bucket counts, one per bound plus the +Inf bucket.
+     */
+    long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            counts[i] = running;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,32 @@
+package com.hytaletravelers.playerlogger.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Internal counters and timings for PlayerLogger's own operations, exported on /metrics.
+ * Everything here is updated lock-free from whichever thread does the work.
+ */
+public final class PluginMetrics {
+
+    // PlayerDataManager.save()
+    public static final Histogram SAVE_DURATION = Histogram.latency();
+    public static final LongAdder SAVE_FAILURES = new LongAdder();
+    public static final AtomicLong SAVE_BYTES = new AtomicLong();
+
+    // DataPushService
+    public static final Histogram PUSH_DURATION = Histogram.latency();
+    public static final LongAdder PUSH_SUCCESSES = new LongAdder();
+    public static final LongAdder PUSH_FAILURES = new LongAdder();
+    public static final LongAdder PUSH_SKIPPED = new LongAdder();
+    public static final AtomicLong PUSH_BYTES = new AtomicLong();
+
+    // DiscordWebhookService
+    public static final AtomicInteger WEBHOOK_QUEUE_DEPTH = new AtomicInteger();
+    public static final LongAdder WEBHOOK_SENT = new LongAdder();
+    public static final LongAdder WEBHOOK_FAILURES = new LongAdder();
+    public static final LongAdder WEBHOOK_DROPPED = new LongAdder();
+
+    private PluginMetrics() {}
+}
@@ -0,0 +1,89 @@
+package com.hytaletravelers.playerlogger.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds a response in the Prometheus text exposition format (version 0.0.4).
+ * HELP and TYPE lines are written the first time each metric name is used,
+ * so samples of one metric with different labels must be written together.
+ */
+public class PrometheusWriter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final Set<String> declared = new HashSet<>();
+
+    public PrometheusWriter gauge(String name, String help, double value) {
+        return sample(name, help, "gauge", null, value);
+    }
+
+    public PrometheusWriter gauge(String name, String help, String labels, double value) {
+        return sample(name, help, "gauge", labels, value);
+    }
+
+    public PrometheusWriter counter(String name, String help, double value) {
+        return sample(name, help, "counter", null, value);
+    }
+
+    public PrometheusWriter counter(String name, String help, String labels, double value) {
+        return sample(name, help, "counter", labels, value);
+    }
+
+    public PrometheusWriter histogram(String name, String help, String labels, Histogram histogram) {
+        declare(name, help, "histogram");
+
+        // Read the buckets first so _count is never below the +Inf bucket
+        long[] counts = histogram.cumulativeCounts();
+        double[] bounds = histogram.bounds();
+        for (int i = 0; i < counts.length; i++) {
+            String le = i < bounds.length ? formatValue(bounds[i]) : "+Inf";
+            String bucketLabels = labels == null ? "le=\"" + le + "\"" : labels + ",le=\"" + le + "\"";
+            line(name + "_bucket", bucketLabels, counts[i]);
+        }
+        line(name + "_sum", labels, histogram.getSum());
+        line(name + "_count", labels, counts[counts.length - 1]);
+        return this;
+    }
+
+    /**
+     * Format a single label pair, escaping the value.
+     */
+    public static String label(String name, String value) {
+        String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return name + "=\"" + escaped + "\"";
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private PrometheusWriter sample(String name, String help, String type, String labels, double value) {
+        declare(name, help, type);
+        line(name, labels, value);
+        return this;
+    }
+
+    private void declare(String name, String help, String type) {
+        if (declared.add(name)) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+    }
+
+    private void line(String name, String labels, double value) {
+        out.append(name);
+        if (labels != null && !labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,96 @@
+package com.hytaletravelers.playerlogger.query;
+
+import java.util.Arrays;
+
+/**
+ * One aggregate in a query's select list, e.g. avg(deathCount) or p90(playtimeSeconds).
+ * Accumulators are created per group (and per parallel chunk) and merged at the end.
+ */
+final class Aggregate {
+    enum Function { COUNT, SUM, AVG, MIN, MAX, PERCENTILE }
+
+    final Function function;
+    final StatField field;
+    final int column;
+    final double percentile;
+    final String label;
+
+    Aggregate(Function function, StatField field, int column, double percentile, String label) {
+        this.function = function;
+        this.field = field;
+        this.column = column;
+        this.percentile = percentile;
+        this.label = label;
+    }
+
+    Accumulator newAccumulator() {
+        return new Accumulator(function == Function.PERCENTILE);
+    }
+
+    Object result(Accumulator acc) {
+        return switch (function) {
+            case COUNT -> acc.count;
+            case SUM -> acc.sum;
+            case AVG -> acc.count == 0 ? null : acc.sum / acc.count;
+            case MIN -> acc.count == 0 ? null : acc.min;
+            case MAX -> acc.count == 0 ? null : acc.max;
+            case PERCENTILE -> acc.percentile(percentile);
+        };
+    }
+
+    /**
+     * Running count/sum/min/max, plus all values when a percentile needs them.
+     */
+    static final class Accumulator {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        private double[] values;
+        private int size;
+
+        Accumulator(boolean keepValues) {
+            this.values = keepValues ? new double[16] : null;
+        }
+
+        void add(double value) {
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+            if (values != null) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = value;
+            }
+        }
+
+        void merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            if (values != null) {
+                if (size + other.size > values.length) {
+                    values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+                }
+                System.arraycopy(other.values, 0, values, size, other.size);
+                size += other.size;
+            }
+        }
+
+        /**
+         * Nearest-rank percentile (0-100) of the added values.
+         */
+        Double percentile(double p) {
+            if (size == 0) {
+                return null;
+            }
+            double[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * size);
+            return sorted[Math.max(0, Math.min(size - 1, rank - 1))];
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.hytaletravelers.playerlogger.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recursive-descent parser for the stat query language:
+ * <pre>
+ *   query     := aggregate ("," aggregate)* ["where" condition] ["group" "by" field]
+ *   aggregate := count() | sum(f) | avg(f) | min(f) | max(f) | median(f) | pNN(f) | percentile(f, n)
+ *   condition := and ("or" and)*
+ *   and       := not ("and" not)*
+ *   not       := "not" not | "(" condition ")" | field op value
+ *   op        := = | == | != | &lt; | &lt;= | &gt; | &gt;=
+ *   value     := number [s|m|h|d] | true | false
+ * </pre>
+ * Fields are resolved to snapshot columns while parsing, so the compiled query never
+ * looks anything up by name.
+ */
+final class QueryParser {
+    private final String text;
+    private final List<StatField> columns = new ArrayList<>();
+    private int pos;
+
+    private QueryParser(String text) {
+        this.text = text;
+    }
+
+    static StatQuery parse(String text) {
+        QueryParser parser = new QueryParser(text);
+        return parser.parseQuery();
+    }
+
+    private StatQuery parseQuery() {
+        List<Aggregate> aggregates = new ArrayList<>();
+        do {
+            aggregates.add(parseAggregate());
+        } while (accept(","));
+
+        StatQuery.RowPredicate where = null;
+        if (acceptKeyword("where")) {
+            where = parseOr();
+        }
+
+        StatField groupBy = null;
+        int groupColumn = -1;
+        if (acceptKeyword("group")) {
+            expectKeyword("by");
+            groupBy = parseField();
+            groupColumn = column(groupBy);
+        }
+
+        skipSpace();
+        if (pos < text.length()) {
+            throw error("Unexpected '" + text.substring(pos) + "'");
+        }
+        return new StatQuery(text, aggregates, where, groupBy, groupColumn, List.copyOf(columns));
+    }
+
+    private Aggregate parseAggregate() {
+        String name = identifier("aggregate function").toLowerCase(Locale.ROOT);
+        expect("(");
+
+        if (name.equals("count")) {
+            expect(")");
+            return new Aggregate(Aggregate.Function.COUNT, null, -1, 0, "count()");
+        }
+
+        StatField field = parseField();
+        Aggregate.Function function;
+        double percentile = 0;
+        switch (name) {
+            case "sum" -> function = Aggregate.Function.SUM;
+            case "avg" -> function = Aggregate.Function.AVG;
+            case "min" -> function = Aggregate.Function.MIN;
+            case "max" -> function = Aggregate.Function.MAX;
+            case "median" -> {
+                function = Aggregate.Function.PERCENTILE;
+                percentile = 50;
+            }
+            case "percentile" -> {
+                function = Aggregate.Function.PERCENTILE;
+                expect(",");
+                percentile = number();
+            }
+            default -> {
+                if (!name.matches("p\\d{1,2}")) {
+                    throw error("Unknown aggregate function '" + name + "'");
+                }
+                function = Aggregate.Function.PERCENTILE;
+                percentile = Integer.parseInt(name.substring(1));
+            }
+        }
+        expect(")");
+
+        if (percentile < 0 || percentile > 100) {
+            throw error("Percentile must be between 0 and 100");
+        }
+        String label = name.equals("percentile")
+                ? "percentile(" + field.getFieldName() + ", " + formatNumber(percentile) + ")"
+                : name + "(" + field.getFieldName() + ")";
+        return new Aggregate(function, field, column(field), percentile, label);
+    }
+
+    private StatQuery.RowPredicate parseOr() {
+        StatQuery.RowPredicate left = parseAnd();
+        while (acceptKeyword("or")) {
+            StatQuery.RowPredicate a = left;
+            StatQuery.RowPredicate b = parseAnd();
+            left = (cols, row) -> a.test(cols, row) || b.test(cols, row);
+        }
+        return left;
+    }
+
+    private StatQuery.RowPredicate parseAnd() {
+        StatQuery.RowPredicate left = parseNot();
+        while (acceptKeyword("and")) {
+            StatQuery.RowPredicate a = left;
+            StatQuery.RowPredicate b = parseNot();
+            left = (cols, row) -> a.test(cols, row) && b.test(cols, row);
+        }
+        return left;
+    }
+
+    private StatQuery.RowPredicate parseNot() {
+        if (acceptKeyword("not")) {
+            StatQuery.RowPredicate inner = parseNot();
+            return (cols, row) -> !inner.test(cols, row);
+        }
+        if (accept("(")) {
+            StatQuery.RowPredicate inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        return parseComparison();
+    }
+
+    private StatQuery.RowPredicate parseComparison() {
+        StatField field = parseField();
+        int c = column(field);
+        String op = operator();
+        double value = value();
+
+        return switch (op) {
+            case "=", "==" -> (cols, row) -> cols[c][row] == value;
+            case "!=" -> (cols, row) -> cols[c][row] != value;
+            case "<" -> (cols, row) -> cols[c][row] < value;
+            case "<=" -> (cols, row) -> cols[c][row] <= value;
+            case ">" -> (cols, row) -> cols[c][row] > value;
+            default -> (cols, row) -> cols[c][row] >= value;
+        };
+    }
+
+    private StatField parseField() {
+        String name = identifier("field");
+        StatField field = StatField.fromName(name);
+        if (field == null) {
+            throw error("Unknown field '" + name + "'");
+        }
+        return field;
+    }
+
+    private int column(StatField field) {
+        int index = columns.indexOf(field);
+        if (index < 0) {
+            columns.add(field);
+            index = columns.size() - 1;
+        }
+        return index;
+    }
+
+    private String operator() {
+        skipSpace();
+        for (String op : new String[] {"==", "!=", "<=", ">=", "=", "<", ">"}) {
+            if (text.startsWith(op, pos)) {
+                pos += op.length();
+                return op;
+            }
+        }
+        throw error("Expected a comparison operator");
+    }
+
+    private double value() {
+        if (acceptKeyword("true")) {
+            return 1;
+        }
+        if (acceptKeyword("false")) {
+            return 0;
+        }
+        double value = number();
+        // Duration suffixes convert to seconds, e.g. playtimeSeconds > 10h
+        if (pos < text.length()) {
+            char unit = Character.toLowerCase(text.charAt(pos));
+            double scale = switch (unit) {
+                case 's' -> 1;
+                case 'm' -> 60;
+                case 'h' -> 3600;
+                case 'd' -> 86400;
+                default -> 0;
+            };
+            boolean endsWord = pos + 1 >= text.length() || !Character.isLetterOrDigit(text.charAt(pos + 1));
+            if (scale > 0 && endsWord) {
+                pos++;
+                value *= scale;
+            }
+        }
+        return value;
+    }
+
+    private double number() {
+        skipSpace();
+        int start = pos;
+        if (pos < text.length() && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            pos++;
+        }
+        while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+            pos++;
+        }
+        try {
+            return Double.parseDouble(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Expected a number");
+        }
+    }
+
+    private String identifier(String what) {
+        skipSpace();
+        int start = pos;
+        while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected " + what);
+        }
+        return text.substring(start, pos);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipSpace();
+        int end = pos + keyword.length();
+        if (text.regionMatches(true, pos, keyword, 0, keyword.length())
+                && (end >= text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error("Expected '" + keyword + "'");
+        }
+    }
+
+    private boolean accept(String symbol) {
+        skipSpace();
+        if (text.startsWith(symbol, pos)) {
+            pos += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) {
+        if (!accept(symbol)) {
+            throw error("Expected '" + symbol + "'");
+        }
+    }
+
+    private void skipSpace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
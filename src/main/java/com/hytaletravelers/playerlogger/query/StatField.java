@@ -0,0 +1,60 @@
+package com.hytaletravelers.playerlogger.query;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Player stats that queries can filter, group and aggregate on.
+ */
+public enum StatField {
+    PLAYTIME_SECONDS("playtimeSeconds", PlayerData::getTotalWithCurrentSession),
+    PLAYTIME_HOURS("playtimeHours", pd -> pd.getTotalWithCurrentSession() / 3600.0),
+    ACTIVE_PLAYTIME_SECONDS("activePlaytimeSeconds", PlayerData::getActivePlaytimeSeconds),
+    IDLE_SECONDS("idleSeconds", PlayerData::getIdleWithCurrentSession),
+    ONLINE("online", pd -> pd.isOnline() ? 1 : 0),
+    DAMAGE_DEALT("damageDealt", PlayerData::getDamageDealt),
+    KILLS("kills", PlayerData::getKillCount),
+    PLAYER_KILLS("playerKills", PlayerData::getPlayerKills),
+    MOB_KILLS("mobKills", PlayerData::getMobKills),
+    DEATHS("deathCount", PlayerData::getDeathCount),
+    BLOCKS_PLACED("blocksPlaced", PlayerData::getBlocksPlaced),
+    BLOCKS_BROKEN("blocksBroken", PlayerData::getBlocksBroken);
+
+    private final String fieldName;
+    private final ToDoubleFunction<PlayerData> getter;
+
+    StatField(String fieldName, ToDoubleFunction<PlayerData> getter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public boolean isBoolean() {
+        return this == ONLINE;
+    }
+
+    public double valueOf(PlayerData player) {
+        return getter.applyAsDouble(player);
+    }
+
+    /**
+     * Find a field by name (case-insensitive), also accepting "deaths" for deathCount.
+     */
+    public static StatField fromName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.equals("deaths")) {
+            return DEATHS;
+        }
+        for (StatField field : values()) {
+            if (field.fieldName.toLowerCase(Locale.ROOT).equals(lower)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package com.hytaletravelers.playerlogger.query;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A compiled stat query, e.g. {@code avg(deathCount), count() where playtimeSeconds > 10h group by online}.
+ * Compile once with {@link #compile(String)} and run against any number of snapshots.
+ * Execution copies just the referenced fields of every player into columns, then filters,
+ * groups and aggregates in one pass over them, split across cores for large player counts.
+ */
+public final class StatQuery {
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    private final String text;
+    private final List<Aggregate> aggregates;
+    private final RowPredicate where;
+    private final StatField groupBy;
+    private final int groupColumn;
+    private final List<StatField> columns;
+
+    StatQuery(String text, List<Aggregate> aggregates, RowPredicate where, StatField groupBy,
+              int groupColumn, List<StatField> columns) {
+        this.text = text;
+        this.aggregates = aggregates;
+        this.where = where;
+        this.groupBy = groupBy;
+        this.groupColumn = groupColumn;
+        this.columns = columns;
+    }
+
+    /**
+     * Parse and compile a query.
+     *
+     * @throws IllegalArgumentException describing the problem and its position if the query is invalid
+     */
+    public static StatQuery compile(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        return QueryParser.parse(text.trim());
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Run the query over the given players.
+     */
+    public Map<String, Object> execute(Collection<PlayerData> players) {
+        // Snapshot the referenced fields once so every aggregate and predicate sees the same values
+        List<PlayerData> snapshot = new ArrayList<>(players);
+        int rows = snapshot.size();
+        double[][] data = new double[columns.size()][rows];
+        for (int row = 0; row < rows; row++) {
+            PlayerData pd = snapshot.get(row);
+            for (int c = 0; c < data.length; c++) {
+                data[c][row] = columns.get(c).valueOf(pd);
+            }
+        }
+
+        Map<Double, Aggregate.Accumulator[]> groups;
+        if (rows >= PARALLEL_THRESHOLD) {
+            int chunks = Math.max(1, Runtime.getRuntime().availableProcessors());
+            int chunkSize = (rows + chunks - 1) / chunks;
+            groups = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> scan(data, chunk * chunkSize, Math.min(rows, (chunk + 1) * chunkSize)))
+                    .reduce(this::merge)
+                    .orElseGet(HashMap::new);
+        } else {
+            groups = scan(data, 0, rows);
+        }
+
+        return toResult(rows, new TreeMap<>(groups));
+    }
+
+    private Map<Double, Aggregate.Accumulator[]> scan(double[][] data, int from, int to) {
+        Map<Double, Aggregate.Accumulator[]> groups = new HashMap<>();
+        Aggregate.Accumulator[] single = null;
+        for (int row = from; row < to; row++) {
+            if (where != null && !where.test(data, row)) {
+                continue;
+            }
+
+            Aggregate.Accumulator[] accs;
+            if (groupColumn < 0) {
+                if (single == null) {
+                    single = newAccumulators();
+                    groups.put(0.0, single);
+                }
+                accs = single;
+            } else {
+                // Adding 0.0 folds -0.0 into 0.0 so they land in one group
+                accs = groups.computeIfAbsent(data[groupColumn][row] + 0.0, k -> newAccumulators());
+            }
+
+            for (int i = 0; i < accs.length; i++) {
+                Aggregate aggregate = aggregates.get(i);
+                accs[i].add(aggregate.column < 0 ? 0 : data[aggregate.column][row]);
+            }
+        }
+        return groups;
+    }
+
+    private Map<Double, Aggregate.Accumulator[]> merge(Map<Double, Aggregate.Accumulator[]> a,
+                                                       Map<Double, Aggregate.Accumulator[]> b) {
+        for (Map.Entry<Double, Aggregate.Accumulator[]> entry : b.entrySet()) {
+            Aggregate.Accumulator[] target = a.get(entry.getKey());
+            if (target == null) {
+                a.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            for (int i = 0; i < target.length; i++) {
+                target[i].merge(entry.getValue()[i]);
+            }
+        }
+        return a;
+    }
+
+    private Aggregate.Accumulator[] newAccumulators() {
+        Aggregate.Accumulator[] accs = new Aggregate.Accumulator[aggregates.size()];
+        for (int i = 0; i < accs.length; i++) {
+            accs[i] = aggregates.get(i).newAccumulator();
+        }
+        return accs;
+    }
+
+    private Map<String, Object> toResult(int scanned, SortedMap<Double, Aggregate.Accumulator[]> groups) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        long matched = 0;
+        for (Map.Entry<Double, Aggregate.Accumulator[]> entry : groups.entrySet()) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            if (groupBy != null) {
+                double key = entry.getKey();
+                group.put(groupBy.getFieldName(), groupBy.isBoolean() ? (Object) (key != 0) : (Object) key);
+            }
+            Aggregate.Accumulator[] accs = entry.getValue();
+            for (int i = 0; i < accs.length; i++) {
+                group.put(aggregates.get(i).label, aggregates.get(i).result(accs[i]));
+            }
+            matched += accs.length > 0 ? accs[0].count : 0;
+            results.add(group);
+        }
+
+        // An ungrouped query always has one row, even when nothing matched
+        if (groupBy == null && results.isEmpty()) {
+            Map<String, Object> empty = new LinkedHashMap<>();
+            Aggregate.Accumulator[] accs = newAccumulators();
+            for (int i = 0; i < accs.length; i++) {
+                empty.put(aggregates.get(i).label, aggregates.get(i).result(accs[i]));
+            }
+            results.add(empty);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", text);
+        result.put("scanned", scanned);
+        result.put("matched", matched);
+        result.put("results", results);
+        return result;
+    }
+
+    /**
+     * Compiled filter over snapshot columns.
+     */
+    @FunctionalInterface
+    interface RowPredicate {
+        boolean test(double[][] columns, int row);
+    }
+}
@@ -25,8 +25,11 @@ import java.util.logging.Level;
 public class BlockBreakTrackingSystem extends EntityEventSystem<EntityStore, BreakBlockEvent> {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    public BlockBreakTrackingSystem() {
+    private final TrackerSwitch trackerSwitch;
+
+    public BlockBreakTrackingSystem(@Nonnull TrackerSwitch trackerSwitch) {
         super(BreakBlockEvent.class);
+        this.trackerSwitch = trackerSwitch;
     }
 
     @Override
@@ -37,9 +40,10 @@ public class BlockBreakTrackingSystem extends EntityEventSystem<EntityStore, Bre
             @Nonnull CommandBuffer<EntityStore> commandBuffer,
             @Nonnull BreakBlockEvent event
     ) {
-        if (event.isCancelled()) {
+        if (!trackerSwitch.isEnabled() || event.isCancelled()) {
             return;
         }
+        trackerSwitch.markHandled();
 
         try {
             // Get entity reference from the archetype chunk
@@ -53,9 +57,17 @@ public class BlockBreakTrackingSystem extends EntityEventSystem<EntityStore, Bre
             if (playerRef != null && playerRef.isValid()) {
                 UUID uuid = playerRef.getUuid();
                 if (uuid != null) {
-                    PlayerData data = PlayerDataManager.getInstance().get(uuid);
+                    PlayerDataManager manager = PlayerDataManager.getInstance();
+                    PlayerData data = manager.get(uuid);
                     if (data != null) {
+                        String world = WorldNames.of(store);
                         data.incrementBlocksBroken();
+                        manager.getWorldStats(data, world).incrementBlocksBroken();
+
+                        if (trackerSwitch.countAndSample()) {
+                            LOGGER.at(Level.FINE).log("[PlayerLogger] %s broke a block in %s (Total: %d)",
+                                data.getUsername(), world, data.getBlocksBroken());
+                        }
                     }
                 }
             }
@@ -25,8 +25,11 @@ import java.util.logging.Level;
 public class BlockPlaceTrackingSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    public BlockPlaceTrackingSystem() {
+    private final TrackerSwitch trackerSwitch;
+
+    public BlockPlaceTrackingSystem(@Nonnull TrackerSwitch trackerSwitch) {
         super(PlaceBlockEvent.class);
+        this.trackerSwitch = trackerSwitch;
     }
 
     @Override
@@ -37,9 +40,10 @@ public class BlockPlaceTrackingSystem extends EntityEventSystem<EntityStore, Pla
             @Nonnull CommandBuffer<EntityStore> commandBuffer,
             @Nonnull PlaceBlockEvent event
     ) {
-        if (event.isCancelled()) {
+        if (!trackerSwitch.isEnabled() || event.isCancelled()) {
             return;
         }
+        trackerSwitch.markHandled();
 
         try {
             // Get entity reference from the archetype chunk
@@ -53,9 +57,17 @@ public class BlockPlaceTrackingSystem extends EntityEventSystem<EntityStore, Pla
             if (playerRef != null && playerRef.isValid()) {
                 UUID uuid = playerRef.getUuid();
                 if (uuid != null) {
-                    PlayerData data = PlayerDataManager.getInstance().get(uuid);
+                    PlayerDataManager manager = PlayerDataManager.getInstance();
+                    PlayerData data = manager.get(uuid);
                     if (data != null) {
+                        String world = WorldNames.of(store);
                         data.incrementBlocksPlaced();
+                        manager.getWorldStats(data, world).incrementBlocksPlaced();
+
+                        if (trackerSwitch.countAndSample()) {
+                            LOGGER.at(Level.FINE).log("[PlayerLogger] %s placed a block in %s (Total: %d)",
+                                data.getUsername(), world, data.getBlocksPlaced());
+                        }
                     }
                 }
             }
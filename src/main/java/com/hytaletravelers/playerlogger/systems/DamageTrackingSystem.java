@@ -17,10 +17,13 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+import com.hytaletravelers.playerlogger.events.EventStream;
 import com.hytaletravelers.playerlogger.webhook.DiscordWebhookService;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -30,8 +33,11 @@ import java.util.logging.Level;
 public class DamageTrackingSystem extends EntityEventSystem<EntityStore, Damage> {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    public DamageTrackingSystem() {
+    private final TrackerSwitch trackerSwitch;
+
+    public DamageTrackingSystem(@Nonnull TrackerSwitch trackerSwitch) {
         super(Damage.class);
+        this.trackerSwitch = trackerSwitch;
     }
 
     @Override
@@ -42,9 +48,10 @@ public class DamageTrackingSystem extends EntityEventSystem<EntityStore, Damage>
             @Nonnull CommandBuffer<EntityStore> commandBuffer,
             @Nonnull Damage event
     ) {
-        if (event.isCancelled()) {
+        if (!trackerSwitch.isEnabled() || event.isCancelled()) {
             return;
         }
+        trackerSwitch.markHandled();
 
         Damage.Source source = event.getSource();
 
@@ -60,14 +67,18 @@ public class DamageTrackingSystem extends EntityEventSystem<EntityStore, Damage>
                 if (attackerPlayerRef != null && attackerPlayerRef.isValid()) {
                     UUID attackerUuid = attackerPlayerRef.getUuid();
                     if (attackerUuid != null) {
-                        PlayerData attackerData = PlayerDataManager.getInstance().get(attackerUuid);
+                        PlayerDataManager manager = PlayerDataManager.getInstance();
+                        PlayerData attackerData = manager.get(attackerUuid);
                         if (attackerData == null) {
                             return;
                         }
+                        String world = WorldNames.of(store);
+                        WorldStats attackerWorldStats = manager.getWorldStats(attackerData, world);
 
                         // Track damage dealt
                         float damageAmount = event.getAmount();
                         attackerData.addDamageDealt(damageAmount);
+                        attackerWorldStats.addDamageDealt(damageAmount);
 
                         // Get the victim entity ref
                         Ref<EntityStore> victimRef = archetypeChunk.getReferenceTo(index);
@@ -88,11 +99,16 @@ public class DamageTrackingSystem extends EntityEventSystem<EntityStore, Damage>
                                 float currentHealth = healthStat.get();
 
                                 if (damageAmount >= currentHealth) {
+                                    // Sampled kills are both logged and streamed; every kill is counted
+                                    boolean sampled = trackerSwitch.countAndSample();
                                     if (victimIsPlayer) {
                                         attackerData.incrementPlayerKills();
+                                        attackerWorldStats.incrementPlayerKills();
                                         String victimName = victimPlayerRef.getUsername();
-                                        LOGGER.at(Level.INFO).log("[PlayerLogger] %s killed a PLAYER! (PvP: %d, PvE: %d)",
-                                            attackerData.getUsername(), attackerData.getPlayerKills(), attackerData.getMobKills());
+                                        if (sampled) {
+                                            LOGGER.at(Level.INFO).log("[PlayerLogger] %s killed a PLAYER! (PvP: %d, PvE: %d)",
+                                                attackerData.getUsername(), attackerData.getPlayerKills(), attackerData.getMobKills());
+                                        }
 
                                         // Send webhook notification for PvP kill
                                         DiscordWebhookService webhook = PlayerLoggerPlugin.getInstance().getWebhookService();
@@ -101,8 +117,24 @@ public class DamageTrackingSystem extends EntityEventSystem<EntityStore, Damage>
                                         }
                                     } else {
                                         attackerData.incrementMobKills();
-                                        LOGGER.at(Level.INFO).log("[PlayerLogger] %s killed a MOB! (PvP: %d, PvE: %d)",
-                                            attackerData.getUsername(), attackerData.getPlayerKills(), attackerData.getMobKills());
+                                        attackerWorldStats.incrementMobKills();
+                                        if (sampled) {
+                                            LOGGER.at(Level.INFO).log("[PlayerLogger] %s killed a MOB! (PvP: %d, PvE: %d)",
+                                                attackerData.getUsername(), attackerData.getPlayerKills(), attackerData.getMobKills());
+                                        }
+                                    }
+
+                                    EventStream events = sampled ? PlayerLoggerPlugin.getInstance().getEventStream() : null;
+                                    if (events != null) {
+                                        Map<String, Object> payload = EventStream.playerPayload(attackerData);
+                                        payload.put("world", world);
+                                        payload.put("victimType", victimIsPlayer ? "player" : "mob");
+                                        if (victimIsPlayer && victimPlayerRef.getUsername() != null) {
+                                            payload.put("victim", victimPlayerRef.getUsername());
+                                        }
+                                        payload.put("playerKills", attackerData.getPlayerKills());
+                                        payload.put("mobKills", attackerData.getMobKills());
+                                        events.publish("kill", payload);
                                     }
                                 }
                             }
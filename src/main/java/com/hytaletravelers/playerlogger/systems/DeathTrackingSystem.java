@@ -14,10 +14,12 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.events.EventStream;
 import com.hytaletravelers.playerlogger.webhook.DiscordWebhookService;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -28,8 +30,11 @@ import java.util.logging.Level;
 public class DeathTrackingSystem extends EntityEventSystem<EntityStore, KillFeedEvent.DecedentMessage> {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    public DeathTrackingSystem() {
+    private final TrackerSwitch trackerSwitch;
+
+    public DeathTrackingSystem(@Nonnull TrackerSwitch trackerSwitch) {
         super(KillFeedEvent.DecedentMessage.class);
+        this.trackerSwitch = trackerSwitch;
     }
 
     @Override
@@ -40,9 +45,10 @@ public class DeathTrackingSystem extends EntityEventSystem<EntityStore, KillFeed
             @Nonnull CommandBuffer<EntityStore> commandBuffer,
             @Nonnull KillFeedEvent.DecedentMessage event
     ) {
-        if (event.isCancelled()) {
+        if (!trackerSwitch.isEnabled() || event.isCancelled()) {
             return;
         }
+        trackerSwitch.markHandled();
 
         try {
             // Get the entity that died (this event fires ON the dead entity)
@@ -62,11 +68,26 @@ public class DeathTrackingSystem extends EntityEventSystem<EntityStore, KillFeed
                 return;
             }
 
-            PlayerData playerData = PlayerDataManager.getInstance().get(playerUuid);
+            PlayerDataManager manager = PlayerDataManager.getInstance();
+            PlayerData playerData = manager.get(playerUuid);
             if (playerData != null) {
+                String world = WorldNames.of(store);
                 playerData.incrementDeathCount();
-                LOGGER.at(Level.INFO).log("[PlayerLogger] %s died (Deaths: %d)",
-                    playerData.getUsername(), playerData.getDeathCount());
+                manager.getWorldStats(playerData, world).incrementDeathCount();
+                // Sampled deaths are both logged and streamed; every death is counted
+                boolean sampled = trackerSwitch.countAndSample();
+                if (sampled) {
+                    LOGGER.at(Level.INFO).log("[PlayerLogger] %s died (Deaths: %d)",
+                        playerData.getUsername(), playerData.getDeathCount());
+                }
+
+                EventStream events = sampled ? PlayerLoggerPlugin.getInstance().getEventStream() : null;
+                if (events != null) {
+                    Map<String, Object> payload = EventStream.playerPayload(playerData);
+                    payload.put("world", world);
+                    payload.put("deathCount", playerData.getDeathCount());
+                    events.publish("death", payload);
+                }
 
                 // Send webhook notification
                 DiscordWebhookService webhook = PlayerLoggerPlugin.getInstance().getWebhookService();
@@ -0,0 +1,95 @@
+package com.hytaletravelers.playerlogger.systems;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.DelayedEntitySystem;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * ECS system that detects idle (AFK) players, comparing each player's position and
+ * rotation with the previous sample.
+ * <p>
+ * Each player is sampled once per sample interval, but not all in the same run: every player
+ * keeps its own next-sample time, offset within the interval when its session starts, and the
+ * system runs once a second to sample whoever is due. Runs in between only look up the player
+ * and compare a timestamp.
+ */
+public class IdleTrackingSystem extends DelayedEntitySystem<EntityStore> {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final TrackerSwitch trackerSwitch;
+    private final long idleTimeoutMillis;
+    private final long sampleIntervalMillis;
+
+    public IdleTrackingSystem(@Nonnull TrackerSwitch trackerSwitch, int sampleIntervalSeconds, int idleTimeoutSeconds) {
+        super(1f);
+        this.trackerSwitch = trackerSwitch;
+        this.idleTimeoutMillis = Math.max(1, idleTimeoutSeconds) * 1000L;
+        this.sampleIntervalMillis = Math.max(1, sampleIntervalSeconds) * 1000L;
+    }
+
+    @Override
+    public void tick(
+            float dt,
+            int index,
+            @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        if (!trackerSwitch.isEnabled()) {
+            return;
+        }
+        trackerSwitch.markHandled();
+
+        try {
+            PlayerRef playerRef = archetypeChunk.getComponent(index, PlayerRef.getComponentType());
+            if (playerRef == null || !playerRef.isValid()) {
+                return;
+            }
+
+            UUID uuid = playerRef.getUuid();
+            if (uuid == null) {
+                return;
+            }
+
+            PlayerData data = PlayerDataManager.getInstance().get(uuid);
+            if (data == null || !data.isActivitySampleDue(System.currentTimeMillis(), sampleIntervalMillis)) {
+                return;
+            }
+
+            TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+            if (transform == null) {
+                return;
+            }
+
+            Vector3d position = transform.getPosition();
+            Vector3f rotation = transform.getRotation();
+            data.recordActivitySample(
+                    position.getX(), position.getY(), position.getZ(),
+                    rotation.getYaw(), rotation.getPitch(),
+                    idleTimeoutMillis
+            );
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Error sampling player activity");
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return Query.and(PlayerRef.getComponentType(), TransformComponent.getComponentType());
+    }
+}
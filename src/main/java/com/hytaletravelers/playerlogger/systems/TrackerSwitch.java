@@ -0,0 +1,63 @@
+package com.hytaletravelers.playerlogger.systems;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime on/off switch and log sampler shared between the plugin and one tracking system.
+ * Systems check {@link #isEnabled()} before doing any work, so a profile change takes
+ * effect immediately without re-registering systems.
+ */
+public class TrackerSwitch {
+    private volatile boolean enabled;
+    private volatile int logSampleRate = 1;
+    private final AtomicLong events = new AtomicLong();
+    private final LongAdder handled = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getLogSampleRate() {
+        return logSampleRate;
+    }
+
+    public void setLogSampleRate(int logSampleRate) {
+        this.logSampleRate = Math.max(1, logSampleRate);
+    }
+
+    /**
+     * Count an ECS event or tick the system processed while enabled, whether or not it changed any stats.
+     */
+    public void markHandled() {
+        handled.increment();
+    }
+
+    /**
+     * Total events or ticks processed since startup.
+     */
+    public long getHandledCount() {
+        return handled.sum();
+    }
+
+    /**
+     * Count an event and decide whether it should be logged and sent to the event stream
+     * (1 in logSampleRate). Counting is unaffected by sampling.
+     */
+    public boolean countAndSample() {
+        long n = events.getAndIncrement();
+        int rate = logSampleRate;
+        return rate <= 1 || n % rate == 0;
+    }
+
+    /**
+     * Total events counted since startup.
+     */
+    public long getEventCount() {
+        return events.get();
+    }
+}
@@ -0,0 +1,29 @@
+package com.hytaletravelers.playerlogger.systems;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Resolves the world a tracking system's entity store belongs to.
+ */
+final class WorldNames {
+    static final String UNKNOWN = "unknown";
+
+    private WorldNames() {}
+
+    @Nonnull
+    static String of(@Nonnull Store<EntityStore> store) {
+        EntityStore entityStore = store.getExternalData();
+        if (entityStore == null) {
+            return UNKNOWN;
+        }
+        World world = entityStore.getWorld();
+        if (world == null || world.getName() == null) {
+            return UNKNOWN;
+        }
+        return world.getName();
+    }
+}
@@ -18,6 +18,7 @@ import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
 import com.hytaletravelers.playerlogger.config.PluginConfig;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.data.WorldStats;
 import com.hytaletravelers.playerlogger.update.UpdateChecker;
 
 import javax.annotation.Nonnull;
@@ -46,6 +47,8 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
     private SortMode sortMode = SortMode.PLAYTIME;
     @Nullable
     private String selectedPlayer = null;
+    @Nullable
+    private String worldFilter = null;
 
     public PlayerLoggerDashboardUI(@Nonnull PlayerRef playerRef) {
         super(playerRef, CustomPageLifetime.CanDismiss, DashboardEventData.CODEC);
@@ -76,6 +79,9 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
         evt.addEventBinding(CustomUIEventBindingType.Activating, "#SortDeaths", EventData.of("Sort", "deaths"));
         evt.addEventBinding(CustomUIEventBindingType.Activating, "#SortOnline", EventData.of("Sort", "online"));
 
+        // Bind world filter button (cycles All Worlds -> each world)
+        evt.addEventBinding(CustomUIEventBindingType.Activating, "#WorldFilter", EventData.of("World", "next"));
+
         // Bind back button
         evt.addEventBinding(CustomUIEventBindingType.Activating, "#BackButton", EventData.of("Back", "true"));
 
@@ -123,6 +129,12 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
             buildPlayerList(cmd, evt);
             sendUpdate(cmd, evt, false);
 
+        } else if (data.world != null) {
+            this.worldFilter = nextWorld();
+            this.selectedPlayer = null;
+            buildPlayerList(cmd, evt);
+            sendUpdate(cmd, evt, false);
+
         } else if (data.selectPlayer != null) {
             this.selectedPlayer = data.selectPlayer;
             showPlayerDetail(cmd);
@@ -162,6 +174,16 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
         cmd.set("#HeaderStats.Text", String.format("%d players tracked  |  %d online now", total, online));
     }
 
+    @Nullable
+    private String nextWorld() {
+        List<String> worlds = PlayerDataManager.getInstance().getWorldNames();
+        if (worlds.isEmpty()) {
+            return null;
+        }
+        int current = worldFilter != null ? worlds.indexOf(worldFilter) : -1;
+        return current + 1 < worlds.size() ? worlds.get(current + 1) : null;
+    }
+
     private void updateVersionStatus(@Nonnull UICommandBuilder cmd) {
         UpdateChecker.UpdateStatus status = UpdateChecker.getStatus();
         cmd.set("#VersionStatus.Text", status.getDisplayText());
@@ -173,6 +195,7 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
         cmd.set("#ListView.Visible", true);
         cmd.set("#ColumnHeaders.Visible", true);
         cmd.set("#SortRow.Visible", true);
+        cmd.set("#WorldLabel.Text", worldFilter != null ? worldFilter : "All Worlds");
 
         PlayerDataManager manager = PlayerDataManager.getInstance();
         List<PlayerData> players = new ArrayList<>(manager.getAllPlayers());
@@ -182,8 +205,15 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
             players.removeIf(p -> !p.getUsername().toLowerCase().contains(searchQuery));
         }
 
+        // Apply world filter
+        if (worldFilter != null) {
+            String world = worldFilter;
+            players.removeIf(p -> p.getWorldStats(world) == null);
+        }
+
         // Apply sorting
-        players.sort(getSortComparator());
+        boolean activeOnly = PlayerLoggerPlugin.getInstance().getPluginConfig().rankByActivePlaytime;
+        players.sort(getSortComparator(activeOnly));
 
         if (players.isEmpty()) {
             cmd.appendInline("#PlayerList",
@@ -201,9 +231,9 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
             // Set individual column values
             String selector = "#PlayerList[" + i + "]";
             cmd.set(selector + " #PlayerName.Text", player.getUsername());
-            cmd.set(selector + " #Playtime.Text", player.getFormattedPlaytime());
-            cmd.set(selector + " #Kills.Text", String.valueOf(player.getKillCount()));
-            cmd.set(selector + " #Deaths.Text", String.valueOf(player.getDeathCount()));
+            cmd.set(selector + " #Playtime.Text", player.getFormattedPlaytime(activeOnly));
+            cmd.set(selector + " #Kills.Text", String.valueOf(killsOf(player)));
+            cmd.set(selector + " #Deaths.Text", String.valueOf(deathsOf(player)));
             cmd.set(selector + " #StatusOnline.Visible", player.isOnline());
             cmd.set(selector + " #StatusOffline.Visible", !player.isOnline());
 
@@ -237,27 +267,48 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
         cmd.set("#DetailStatusOnline.Visible", player.isOnline());
         cmd.set("#DetailStatusOffline.Visible", !player.isOnline());
         cmd.set("#DetailPlaytime.Text", player.getFormattedPlaytime());
-        cmd.set("#DetailPvPKills.Text", String.valueOf(player.getPlayerKills()));
-        cmd.set("#DetailMobKills.Text", String.valueOf(player.getMobKills()));
-        cmd.set("#DetailDeaths.Text", String.valueOf(player.getDeathCount()));
-        cmd.set("#DetailDamage.Text", String.format("%.0f", player.getDamageDealt()));
-
-        float kd = player.getDeathCount() > 0
-                ? (float) player.getPlayerKills() / player.getDeathCount()
-                : player.getPlayerKills();
+        cmd.set("#DetailActivePlaytime.Text", player.getFormattedActivePlaytime());
+
+        // Combat and block stats follow the world filter; playtime is always combined
+        WorldStats ws = worldFilter != null ? player.getWorldStats(worldFilter) : null;
+        int playerKills = ws != null ? ws.getPlayerKills() : player.getPlayerKills();
+        int mobKills = ws != null ? ws.getMobKills() : player.getMobKills();
+        int deaths = ws != null ? ws.getDeathCount() : player.getDeathCount();
+        float damage = ws != null ? ws.getDamageDealt() : player.getDamageDealt();
+
+        cmd.set("#DetailWorld.Text", ws != null ? worldFilter : "All Worlds");
+        cmd.set("#DetailPvPKills.Text", String.valueOf(playerKills));
+        cmd.set("#DetailMobKills.Text", String.valueOf(mobKills));
+        cmd.set("#DetailDeaths.Text", String.valueOf(deaths));
+        cmd.set("#DetailDamage.Text", String.format("%.0f", damage));
+
+        float kd = deaths > 0
+                ? (float) playerKills / deaths
+                : playerKills;
         cmd.set("#DetailKDRatio.Text", String.format("%.2f", kd));
 
-        cmd.set("#DetailBlocksBroken.Text", String.valueOf(player.getBlocksBroken()));
-        cmd.set("#DetailBlocksPlaced.Text", String.valueOf(player.getBlocksPlaced()));
+        cmd.set("#DetailBlocksBroken.Text", String.valueOf(ws != null ? ws.getBlocksBroken() : player.getBlocksBroken()));
+        cmd.set("#DetailBlocksPlaced.Text", String.valueOf(ws != null ? ws.getBlocksPlaced() : player.getBlocksPlaced()));
+    }
+
+    private int killsOf(@Nonnull PlayerData player) {
+        WorldStats ws = worldFilter != null ? player.getWorldStats(worldFilter) : null;
+        return ws != null ? ws.getKillCount() : player.getKillCount();
+    }
+
+    private int deathsOf(@Nonnull PlayerData player) {
+        WorldStats ws = worldFilter != null ? player.getWorldStats(worldFilter) : null;
+        return ws != null ? ws.getDeathCount() : player.getDeathCount();
     }
 
-    private Comparator<PlayerData> getSortComparator() {
+    private Comparator<PlayerData> getSortComparator(boolean activeOnly) {
+        Comparator<PlayerData> byPlaytime = Comparator.comparingLong((PlayerData p) -> p.getPlaytimeSeconds(activeOnly)).reversed();
         return switch (sortMode) {
-            case PLAYTIME -> Comparator.comparingLong(PlayerData::getTotalWithCurrentSession).reversed();
-            case KILLS -> Comparator.comparingInt(PlayerData::getKillCount).reversed();
-            case DEATHS -> Comparator.comparingInt(PlayerData::getDeathCount).reversed();
+            case PLAYTIME -> byPlaytime;
+            case KILLS -> Comparator.comparingInt(this::killsOf).reversed();
+            case DEATHS -> Comparator.comparingInt(this::deathsOf).reversed();
             case ONLINE -> Comparator.comparing(PlayerData::isOnline).reversed()
-                    .thenComparing(Comparator.comparingLong(PlayerData::getTotalWithCurrentSession).reversed());
+                    .thenComparing(byPlaytime);
         };
     }
 
@@ -283,6 +334,9 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
                 .append(new KeyedCodec<>("Sort", Codec.STRING),
                         (e, v) -> e.sort = v, e -> e.sort)
                 .add()
+                .append(new KeyedCodec<>("World", Codec.STRING),
+                        (e, v) -> e.world = v, e -> e.world)
+                .add()
                 .append(new KeyedCodec<>("SelectPlayer", Codec.STRING),
                         (e, v) -> e.selectPlayer = v, e -> e.selectPlayer)
                 .add()
@@ -299,6 +353,7 @@ public class PlayerLoggerDashboardUI extends InteractiveCustomUIPage<PlayerLogge
 
         @Nullable String searchQuery;
         @Nullable String sort;
+        @Nullable String world;
         @Nullable String selectPlayer;
         @Nullable String back;
         @Nullable String curseForge;
@@ -3,13 +3,13 @@ package com.hytaletravelers.playerlogger.update;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hytaletravelers.playerlogger.http.SharedHttpClient;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -40,9 +40,6 @@ public class UpdateChecker {
     private static final String VERSION_CHECK_URL = "https://api.hytaletravelers.com/plugins/playerlogger/version";
 
     private static final Gson GSON = new Gson();
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(5))
-            .build();
 
     private static final AtomicReference<UpdateStatus> cachedStatus = new AtomicReference<>(UpdateStatus.UNKNOWN);
     private static volatile String latestVersion = null;
@@ -112,11 +109,8 @@ public class UpdateChecker {
         lastCheckTime = System.currentTimeMillis();
         cachedStatus.set(UpdateStatus.CHECKING);
 
-        CompletableFuture.runAsync(() -> {
+        fetchLatestVersion().thenAccept(latest -> {
             try {
-                // Try the HytaleTravelers API first
-                String latest = fetchLatestVersion();
-
                 if (latest != null) {
                     latestVersion = latest;
                     int comparison = compareVersions(CURRENT_VERSION, latest);
@@ -145,31 +139,28 @@ public class UpdateChecker {
     }
 
     /**
-     * Fetch the latest version from the API.
+     * Fetch the latest version from the API; completes with null if it can't be reached.
      */
-    @Nullable
-    private static String fetchLatestVersion() {
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(VERSION_CHECK_URL))
-                    .header("User-Agent", "PlayerLogger/" + CURRENT_VERSION)
-                    .timeout(Duration.ofSeconds(5))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonObject json = GSON.fromJson(response.body(), JsonObject.class);
-                if (json != null && json.has("version")) {
-                    return json.get("version").getAsString();
-                }
-            }
-        } catch (Exception e) {
-            // API not available, that's fine
-        }
-
-        return null;
+    private static CompletableFuture<String> fetchLatestVersion() {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(VERSION_CHECK_URL))
+                .header("User-Agent", "PlayerLogger/" + CURRENT_VERSION)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+
+        return SharedHttpClient.get().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() == 200) {
+                        JsonObject json = GSON.fromJson(response.body(), JsonObject.class);
+                        if (json != null && json.has("version")) {
+                            return json.get("version").getAsString();
+                        }
+                    }
+                    return (String) null;
+                })
+                // API not available, that's fine
+                .exceptionally(e -> null);
     }
 
     /**
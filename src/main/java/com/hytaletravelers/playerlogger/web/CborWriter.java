@@ -0,0 +1,146 @@
+package com.hytaletravelers.playerlogger.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal CBOR (RFC 8949) encoder for API responses sent as application/cbor.
+ * Covers what the player projections need: definite-length maps and arrays, text strings,
+ * integers, single-precision floats and booleans.
+ * Wrap slow streams in a buffer; every item is written with one or two write calls.
+ */
+final class CborWriter {
+    static final String CONTENT_TYPE = "application/cbor";
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT32 = 0xfa;
+
+    private final OutputStream out;
+    private final byte[] scratch = new byte[9];
+
+    CborWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    CborWriter beginArray(int size) throws IOException {
+        writeHeader(MAJOR_ARRAY, size);
+        return this;
+    }
+
+    CborWriter beginMap(int size) throws IOException {
+        writeHeader(MAJOR_MAP, size);
+        return this;
+    }
+
+    CborWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT, utf8.length);
+        out.write(utf8);
+        return this;
+    }
+
+    CborWriter value(long value) throws IOException {
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            // Negative integers are encoded as -1 - n
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+        return this;
+    }
+
+    CborWriter value(float value) throws IOException {
+        int bits = Float.floatToIntBits(value);
+        scratch[0] = (byte) FLOAT32;
+        scratch[1] = (byte) (bits >>> 24);
+        scratch[2] = (byte) (bits >>> 16);
+        scratch[3] = (byte) (bits >>> 8);
+        scratch[4] = (byte) bits;
+        out.write(scratch, 0, 5);
+        return this;
+    }
+
+    CborWriter value(boolean value) throws IOException {
+        out.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    CborWriter nullValue() throws IOException {
+        out.write(NULL);
+        return this;
+    }
+
+    /**
+     * Write an item that was already encoded, such as a map key from {@link #encodeText}.
+     */
+    CborWriter raw(byte[] encoded) throws IOException {
+        out.write(encoded);
+        return this;
+    }
+
+    /**
+     * Encode a text string once so it can be written repeatedly with {@link #raw}.
+     */
+    static byte[] encodeText(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[9];
+        int headerLength = encodeHeader(header, MAJOR_TEXT, utf8.length);
+        byte[] encoded = new byte[headerLength + utf8.length];
+        System.arraycopy(header, 0, encoded, 0, headerLength);
+        System.arraycopy(utf8, 0, encoded, headerLength, utf8.length);
+        return encoded;
+    }
+
+    private void writeHeader(int major, long argument) throws IOException {
+        out.write(scratch, 0, encodeHeader(scratch, major, argument));
+    }
+
+    /**
+     * Encode a major type and its argument in the shortest form.
+     *
+     * @return the number of bytes written to buf
+     */
+    private static int encodeHeader(byte[] buf, int major, long argument) {
+        int type = major << 5;
+        if (argument < 24) {
+            buf[0] = (byte) (type | (int) argument);
+            return 1;
+        }
+        if (argument < 0x100) {
+            buf[0] = (byte) (type | 24);
+            buf[1] = (byte) argument;
+            return 2;
+        }
+        if (argument < 0x10000) {
+            buf[0] = (byte) (type | 25);
+            buf[1] = (byte) (argument >>> 8);
+            buf[2] = (byte) argument;
+            return 3;
+        }
+        if (argument < 0x100000000L) {
+            buf[0] = (byte) (type | 26);
+            buf[1] = (byte) (argument >>> 24);
+            buf[2] = (byte) (argument >>> 16);
+            buf[3] = (byte) (argument >>> 8);
+            buf[4] = (byte) argument;
+            return 5;
+        }
+        buf[0] = (byte) (type | 27);
+        for (int i = 0; i < 8; i++) {
+            buf[1 + i] = (byte) (argument >>> (56 - 8 * i));
+        }
+        return 9;
+    }
+}
@@ -0,0 +1,109 @@
+package com.hytaletravelers.playerlogger.web;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client token buckets for the local API.
+ * Each bucket is a single AtomicLong holding the time at which it would be full again
+ * (the GCRA form of a token bucket), so checking a request is one CAS with no locks.
+ * The client table is bounded: full buckets carry no state and are evicted first, and
+ * clients that still don't fit share one overflow bucket. Evicting scans the whole table,
+ * so a full table is swept at most once a second however many new clients arrive.
+ */
+class ClientRateLimiter {
+    private static final long EVICT_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxClients;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflow = new Bucket();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final AtomicLong nextEvictNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param perSecond  sustained requests per second per client
+     * @param burst      requests a client may make at once after being idle
+     * @param maxClients clients tracked individually
+     */
+    ClientRateLimiter(double perSecond, int burst, int maxClients) {
+        this.intervalNanos = (long) (1_000_000_000L / perSecond);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.maxClients = Math.max(1, maxClients);
+    }
+
+    /**
+     * Take a token for the client.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until a token is available
+     */
+    long tryAcquire(String client) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = bucketFor(client, now);
+        }
+
+        while (true) {
+            long fullAt = bucket.fullAt.get();
+            long base = Math.max(fullAt, now);
+            long next = base + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                limited.increment();
+                return wait;
+            }
+            if (bucket.fullAt.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private Bucket bucketFor(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            // One caller sweeps; the rest use the overflow bucket until it frees room
+            long evictAt = nextEvictNanos.get();
+            if (now - evictAt >= 0 && nextEvictNanos.compareAndSet(evictAt, now + EVICT_INTERVAL_NANOS)) {
+                evictFull(now);
+            }
+            if (buckets.size() >= maxClients) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(client, c -> new Bucket());
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they behave exactly like a new bucket.
+     */
+    void evictFull(long now) {
+        Iterator<Bucket> it = buckets.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().fullAt.get() <= now) {
+                it.remove();
+                evicted.increment();
+            }
+        }
+    }
+
+    int getTrackedClients() {
+        return buckets.size();
+    }
+
+    long getLimitedRequests() {
+        return limited.sum();
+    }
+
+    long getEvictedClients() {
+        return evicted.sum();
+    }
+
+    private static final class Bucket {
+        final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE / 2);
+    }
+}
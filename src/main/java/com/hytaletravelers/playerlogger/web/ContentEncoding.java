@@ -0,0 +1,108 @@
+package com.hytaletravelers.playerlogger.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response content codings negotiated from Accept-Encoding.
+ */
+enum ContentEncoding {
+    IDENTITY(null),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String headerValue;
+
+    ContentEncoding(String headerValue) {
+        this.headerValue = headerValue;
+    }
+
+    /**
+     * Value for the Content-Encoding header, or null for identity.
+     */
+    String headerValue() {
+        return headerValue;
+    }
+
+    /**
+     * Pick the best coding the client accepts, preferring gzip over deflate.
+     * Codings with q=0 are treated as refused.
+     */
+    static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return IDENTITY;
+        }
+
+        float gzipQ = 0;
+        float deflateQ = 0;
+        float wildcardQ = -1;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase();
+            float q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> { gzipQ = q; gzipListed = true; }
+                case "deflate" -> { deflateQ = q; deflateListed = true; }
+                case "*" -> wildcardQ = q;
+                default -> { }
+            }
+        }
+
+        if (!gzipListed && wildcardQ > 0) gzipQ = wildcardQ;
+        if (!deflateListed && wildcardQ > 0) deflateQ = wildcardQ;
+
+        if (gzipQ > 0 && gzipQ >= deflateQ) {
+            return GZIP;
+        }
+        if (deflateQ > 0) {
+            return DEFLATE;
+        }
+        return IDENTITY;
+    }
+
+    /**
+     * Wrap a stream so that everything written to it is encoded with this coding.
+     */
+    OutputStream wrap(OutputStream out) throws IOException {
+        return switch (this) {
+            case IDENTITY -> out;
+            case GZIP -> new GZIPOutputStream(out, 8192);
+            case DEFLATE -> new DeflaterOutputStream(out);
+        };
+    }
+
+    /**
+     * Encode a complete body.
+     */
+    byte[] encode(byte[] body) {
+        if (this == IDENTITY) {
+            return body;
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            try (OutputStream out = wrap(buffer)) {
+                out.write(body);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
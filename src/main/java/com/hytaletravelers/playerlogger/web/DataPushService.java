@@ -1,18 +1,14 @@
 package com.hytaletravelers.playerlogger.web;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.data.ChangeLog;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
-import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import com.hytaletravelers.playerlogger.data.PlayerIndex;
+import com.hytaletravelers.playerlogger.data.PlayerSort;
+
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -20,43 +16,66 @@ import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
- * Pushes player data to an external URL periodically.
+ * Pushes player data to one or more external URLs periodically.
  * Works behind NAT/firewalls - no open ports needed.
+ * <p>
+ * The primary target comes from pushUrl and the push* settings, extra ones from pushTargets.
+ * Each target is a {@link PushWorker} with its own schedule, format, retries and outbox. Once a
+ * second the push thread asks every worker whether it is due; the due ones share that tick's
+ * {@link Encodings}, so a snapshot is serialized (and gzipped) once per format no matter how
+ * many targets send it. Sends are asynchronous, so a slow target never delays the others.
  */
 public class DataPushService {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
     private final String pushUrl;
-    private final int intervalSeconds;
     private final String serverName;
-    private final boolean publicListing;
-    private final Gson gson;
+    private final boolean rankByActivePlaytime;
+    private final PushPayloadEncoder encoder;
+    private final List<PushWorker> workers = new ArrayList<>();
     private final ScheduledExecutorService scheduler;
 
-    public DataPushService(String pushUrl, int intervalSeconds, String serverName, boolean publicListing) {
-        this.pushUrl = pushUrl;
-        this.intervalSeconds = intervalSeconds;
-        this.serverName = serverName;
-        this.publicListing = publicListing;
-        this.gson = new GsonBuilder().create();
+    public DataPushService(PluginConfig config, Path dataFolder) {
+        this.pushUrl = config.pushUrl;
+        this.serverName = config.serverName;
+        this.rankByActivePlaytime = config.rankByActivePlaytime;
+        this.encoder = new PushPayloadEncoder(pushProjection(config.pushFields), serverName,
+                config.publicListing, rankByActivePlaytime);
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "PlayerLogger-DataPush");
             t.setDaemon(true);
             return t;
         });
+
+        if (pushUrl != null && !pushUrl.isEmpty()) {
+            workers.add(new PushWorker(this, scheduler, config, primaryTarget(config),
+                    new PushOutbox(dataFolder, "push-outbox.json")));
+        }
+        if (config.pushTargets != null) {
+            for (PluginConfig.PushTarget target : config.pushTargets) {
+                if (target == null || target.url == null || target.url.isEmpty()) {
+                    continue;
+                }
+                // Named after the URL so a spooled payload never goes to another target
+                String outboxName = String.format("push-outbox-%08x.json", target.url.hashCode());
+                workers.add(new PushWorker(this, scheduler, config, target, new PushOutbox(dataFolder, outboxName)));
+            }
+        }
     }
 
     public void start() {
-        if (pushUrl == null || pushUrl.isEmpty()) {
+        if (workers.isEmpty()) {
             LOGGER.at(Level.WARNING).log("[PlayerLogger] Push mode enabled but no pushUrl configured!");
             LOGGER.at(Level.WARNING).log("[PlayerLogger] Set pushUrl in config.json to enable data sync");
             return;
         }
 
-        LOGGER.at(Level.INFO).log("[PlayerLogger] Push mode started - syncing every %d seconds", intervalSeconds);
-        LOGGER.at(Level.INFO).log("[PlayerLogger] Pushing to: %s", pushUrl);
-
-        scheduler.scheduleAtFixedRate(this::pushData, 5, intervalSeconds, TimeUnit.SECONDS);
+        LOGGER.at(Level.INFO).log("[PlayerLogger] Push mode started - %d target(s)", workers.size());
+        long firstPushMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        for (PushWorker worker : workers) {
+            worker.start(firstPushMillis);
+        }
+        scheduler.scheduleWithFixedDelay(this::tick, 1, 1, TimeUnit.SECONDS);
     }
 
     public void stop() {
@@ -72,147 +91,164 @@ public class DataPushService {
         LOGGER.at(Level.INFO).log("[PlayerLogger] Push service stopped");
     }
 
-    private void pushData() {
-        try {
-            PlayerDataManager manager = PlayerDataManager.getInstance();
-            if (manager == null) {
-                return;
+    /**
+     * Give every due worker its push, sharing this tick's encodings.
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        Encodings encodings = newEncodings();
+        for (PushWorker worker : workers) {
+            try {
+                worker.poll(now, encodings);
+            } catch (Exception e) {
+                // A failing worker must not cancel the tick task for everyone
+                LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to push data to %s", worker.getUrl());
             }
-
-            // Build the payload
-            Map<String, Object> payload = new LinkedHashMap<>();
-
-            // Stats
-            Map<String, Object> stats = new LinkedHashMap<>();
-            stats.put("totalPlayers", manager.getPlayerCount());
-            stats.put("onlinePlayers", manager.getOnlineCount());
-
-            long totalPlaytime = 0;
-            float totalDamage = 0;
-            int totalPlayerKills = 0;
-            int totalMobKills = 0;
-            int totalDeaths = 0;
-            int totalBlocksPlaced = 0;
-            int totalBlocksBroken = 0;
-            List<Map<String, Object>> playerList = new ArrayList<>();
-
-            for (PlayerData pd : manager.getAllPlayers()) {
-                totalPlaytime += pd.getTotalWithCurrentSession();
-                totalDamage += pd.getDamageDealt();
-                totalPlayerKills += pd.getPlayerKills();
-                totalMobKills += pd.getMobKills();
-                totalDeaths += pd.getDeathCount();
-                totalBlocksPlaced += pd.getBlocksPlaced();
-                totalBlocksBroken += pd.getBlocksBroken();
-
-                Map<String, Object> playerEntry = getStringObjectMap(pd);
-                playerList.add(playerEntry);
-            }
-
-            // Sort by playtime descending
-            playerList.sort((a, b) -> Long.compare(
-                (Long) b.get("playtimeSeconds"),
-                (Long) a.get("playtimeSeconds")
-            ));
-
-            stats.put("totalPlaytimeSeconds", totalPlaytime);
-            stats.put("totalDamageDealt", totalDamage);
-            stats.put("totalPlayerKills", totalPlayerKills);
-            stats.put("totalMobKills", totalMobKills);
-            stats.put("totalDeaths", totalDeaths);
-            stats.put("totalBlocksPlaced", totalBlocksPlaced);
-            stats.put("totalBlocksBroken", totalBlocksBroken);
-
-            payload.put("stats", stats);
-            payload.put("players", playerList);
-            payload.put("lastUpdated", System.currentTimeMillis());
-
-            // Include custom server name if configured
-            if (serverName != null && !serverName.isEmpty()) {
-                payload.put("serverName", serverName);
-            }
-
-            // Include public listing preference
-            payload.put("publicListing", publicListing);
-
-            // Send the data
-            String json = gson.toJson(payload);
-            sendPost(json);
-
-        } catch (Exception e) {
-            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to push data");
         }
     }
 
-    @NonNullDecl
-    private static Map<String, Object> getStringObjectMap(PlayerData pd) {
-        Map<String, Object> playerEntry = new LinkedHashMap<>();
-        playerEntry.put("uuid", pd.getUuid().toString());
-        playerEntry.put("username", pd.getUsername());
-        playerEntry.put("playtimeSeconds", pd.getTotalWithCurrentSession());
-        playerEntry.put("playtimeFormatted", pd.getFormattedPlaytime());
-        playerEntry.put("online", pd.isOnline());
-        playerEntry.put("damageDealt", pd.getDamageDealt());
-        playerEntry.put("playerKills", pd.getPlayerKills());
-        playerEntry.put("mobKills", pd.getMobKills());
-        playerEntry.put("deathCount", pd.getDeathCount());
-        playerEntry.put("blocksPlaced", pd.getBlocksPlaced());
-        playerEntry.put("blocksBroken", pd.getBlocksBroken());
-        return playerEntry;
+    Encodings newEncodings() {
+        return new Encodings();
     }
 
-    private void sendPost(String json) throws IOException {
-        sendPostWithRedirect(pushUrl, json, 0);
+    String getServerName() {
+        return serverName;
     }
 
-    private void sendPostWithRedirect(String urlString, String json, int redirectCount) throws IOException {
-        if (redirectCount > 5) {
-            LOGGER.at(Level.WARNING).log("[PlayerLogger] Too many redirects");
-            return;
+    /**
+     * The target described by the top-level push settings.
+     */
+    private static PluginConfig.PushTarget primaryTarget(PluginConfig config) {
+        PluginConfig.PushTarget target = new PluginConfig.PushTarget();
+        target.url = config.pushUrl;
+        target.intervalSeconds = config.pushIntervalSeconds;
+        target.adaptive = config.pushAdaptive;
+        target.deltaEnabled = config.pushDeltaEnabled;
+        target.compression = config.pushCompression;
+        target.skipUnchanged = config.pushSkipUnchanged;
+        return target;
+    }
+
+    /**
+     * Projection for the configured push fields; uuid and username are always included
+     * since the receiving API keys entries by them.
+     */
+    private static PlayerProjection pushProjection(String pushFields) {
+        if (pushFields == null || pushFields.isBlank()) {
+            return PlayerProjection.ALL;
         }
+        try {
+            return PlayerProjection.of("uuid,username," + pushFields);
+        } catch (IllegalArgumentException e) {
+            LOGGER.at(Level.WARNING).log("[PlayerLogger] Invalid pushFields (%s), pushing all fields", e.getMessage());
+            return PlayerProjection.ALL;
+        }
+    }
 
-        URL url = URI.create(urlString).toURL();
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    public String getPushUrl() {
+        return pushUrl;
+    }
 
-        try {
-            conn.setInstanceFollowRedirects(false); // Handle manually
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("User-Agent", "PlayerLogger/1.0");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
+    /**
+     * Payloads encoded during one tick, built on first request and shared by every target
+     * that asks for the same thing. Only used on the push thread.
+     */
+    final class Encodings {
+        private final Payload[] full = new Payload[2];
+        private final Map<Long, Payload> deltasByBase = new HashMap<>();
+
+        /**
+         * Every player, sorted by playtime descending.
+         *
+         * @param tagged whether to include the payload type and sequence for delta-mode targets
+         */
+        Payload full(boolean tagged) {
+            int slot = tagged ? 1 : 0;
+            if (full[slot] == null) {
+                PlayerDataManager manager = PlayerDataManager.getInstance();
+                // Taken before reading players, so changes made while building are sent again next time
+                long sequence = manager.getChangeLog().getSequence();
+                PlayerIndex.Ranking ranking = manager.getRanking(
+                        rankByActivePlaytime ? PlayerSort.ACTIVE_PLAYTIME : PlayerSort.PLAYTIME);
+                full[slot] = encoder.encode(manager.getAllPlayers(), manager.getOnlineCount(), tagged, "full",
+                        -1, sequence, ranking.size(), i -> ranking.get(i, true), List.of());
             }
+            return full[slot];
+        }
 
-            int responseCode = conn.getResponseCode();
+        /**
+         * The players changed in the batch, plus everyone online since their playtime grows
+         * without recorded changes. Shared by targets that acknowledged the same sequence.
+         */
+        Payload delta(ChangeLog.Batch batch) {
+            Payload cached = deltasByBase.get(batch.since);
+            if (cached != null && cached.sequence == batch.sequence) {
+                return cached;
+            }
 
-            // Handle redirects
-            if (responseCode == 301 || responseCode == 302 || responseCode == 307 || responseCode == 308) {
-                String newUrl = conn.getHeaderField("Location");
-                if (newUrl != null) {
-                    LOGGER.at(Level.INFO).log("[PlayerLogger] Following redirect to: %s", newUrl);
-                    conn.disconnect();
-                    sendPostWithRedirect(newUrl, json, redirectCount + 1);
-                    return;
+            PlayerDataManager manager = PlayerDataManager.getInstance();
+            Map<UUID, PlayerData> changed = new LinkedHashMap<>();
+            List<UUID> removed = new ArrayList<>();
+            for (ChangeLog.Change change : batch.changes) {
+                PlayerData pd = change.removed ? null : manager.get(change.uuid);
+                if (pd != null) {
+                    changed.put(change.uuid, pd);
+                } else {
+                    removed.add(change.uuid);
                 }
             }
-
-            if (responseCode >= 200 && responseCode < 300) {
-                LOGGER.at(Level.FINE).log("[PlayerLogger] Data pushed successfully");
-            } else {
-                LOGGER.at(Level.WARNING).log("[PlayerLogger] Push failed with status: %d", responseCode);
+            for (PlayerData pd : manager.getOnlinePlayers()) {
+                changed.putIfAbsent(pd.getUuid(), pd);
             }
 
-        } finally {
-            conn.disconnect();
+            List<PlayerData> players = new ArrayList<>(changed.values());
+            Payload payload = encoder.encode(manager.getAllPlayers(), manager.getOnlineCount(), true, "delta",
+                    batch.since, batch.sequence, players.size(), players::get, removed);
+            deltasByBase.put(batch.since, payload);
+            return payload;
         }
     }
 
-    public String getPushUrl() {
-        return pushUrl;
+    /**
+     * Encoded push body with the change sequence it covers and a hash of everything except its timestamp.
+     * Shared by every target that sends it, including the gzipped copy.
+     */
+    static final class Payload {
+        final byte[] body;
+        // Sequence a delta applies on top of, or -1 for a full snapshot
+        final long baseSequence;
+        final long sequence;
+        final long contentHash;
+        private volatile byte[] gzipBody;
+
+        Payload(byte[] body, long baseSequence, long sequence, long contentHash) {
+            this.body = body;
+            this.baseSequence = baseSequence;
+            this.sequence = sequence;
+            this.contentHash = contentHash;
+        }
+
+        /**
+         * Body that isn't an encoded snapshot, e.g. a heartbeat or a payload read back from the outbox.
+         */
+        Payload(byte[] body) {
+            this(body, -1, -1, 0);
+        }
+
+        boolean isDelta() {
+            return baseSequence >= 0;
+        }
+
+        /**
+         * The body gzipped, compressed on first use.
+         */
+        byte[] gzipped() {
+            byte[] encoded = gzipBody;
+            if (encoded == null) {
+                encoded = ContentEncoding.GZIP.encode(body);
+                gzipBody = encoded;
+            }
+            return encoded;
+        }
     }
 }
@@ -0,0 +1,94 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The requested fields of every exported player, copied when the export starts.
+ * <p>
+ * Rows are copied one player at a time, all fields together, so a row never mixes values from
+ * before and after a later update, and every row is as of the start of the export however long
+ * the client takes to read it. Values are kept in one primitive array per field, which is far
+ * smaller than the encoded output.
+ */
+final class ExportSnapshot {
+    private final List<PlayerField> fields;
+    private final int size;
+    // One array per field: String[], long[], float[] or boolean[] depending on its kind
+    private final Object[] columns;
+
+    ExportSnapshot(List<PlayerData> players, List<PlayerField> fields) {
+        this.fields = fields;
+        this.size = players.size();
+        this.columns = new Object[fields.size()];
+        for (int f = 0; f < columns.length; f++) {
+            columns[f] = switch (fields.get(f).getKind()) {
+                case STRING -> new String[size];
+                case LONG -> new long[size];
+                case DOUBLE -> new float[size];
+                case BOOLEAN -> new boolean[size];
+            };
+        }
+
+        for (int row = 0; row < size; row++) {
+            PlayerData player = players.get(row);
+            for (int f = 0; f < columns.length; f++) {
+                PlayerField field = fields.get(f);
+                switch (field.getKind()) {
+                    case STRING -> ((String[]) columns[f])[row] = field.stringOf(player);
+                    case LONG -> ((long[]) columns[f])[row] = field.longOf(player);
+                    case DOUBLE -> ((float[]) columns[f])[row] = field.floatOf(player);
+                    case BOOLEAN -> ((boolean[]) columns[f])[row] = field.booleanOf(player);
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Append one row as an NDJSON line.
+     */
+    void writeJson(int row, Appendable out) throws IOException {
+        out.append('{');
+        for (int f = 0; f < columns.length; f++) {
+            if (f > 0) out.append(',');
+            PlayerField field = fields.get(f);
+            out.append(field.getJsonKey());
+            if (field.getKind() == PlayerField.Kind.STRING) {
+                PlayerField.writeJsonString(((String[]) columns[f])[row], out);
+            } else {
+                writeScalar(f, row, out);
+            }
+        }
+        out.append("}\n");
+    }
+
+    /**
+     * Append one row as a CSV line, quoting strings only when needed.
+     */
+    void writeCsv(int row, Appendable out) throws IOException {
+        for (int f = 0; f < columns.length; f++) {
+            if (f > 0) out.append(',');
+            if (fields.get(f).getKind() == PlayerField.Kind.STRING) {
+                PlayerField.writeCsvString(((String[]) columns[f])[row], out);
+            } else {
+                writeScalar(f, row, out);
+            }
+        }
+        out.append("\r\n");
+    }
+
+    private void writeScalar(int f, int row, Appendable out) throws IOException {
+        switch (fields.get(f).getKind()) {
+            case LONG -> out.append(Long.toString(((long[]) columns[f])[row]));
+            case DOUBLE -> out.append(Float.toString(((float[]) columns[f])[row]));
+            case BOOLEAN -> out.append(((boolean[]) columns[f])[row] ? "true" : "false");
+            default -> throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.hytaletravelers.playerlogger.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * JSON encoder that writes UTF-8 straight into a growable byte buffer, for payloads built over and over.
+ * The buffer is kept across {@link #reset()} calls, so once it has grown to payload size encoding
+ * allocates nothing: numbers, UUIDs and strings are written byte by byte, and keys come
+ * pre-encoded from {@link #encodeKey}. Not thread-safe; one writer per encoding thread.
+ * <p>
+ * Compact output only, nested at most 64 levels deep.
+ */
+final class JsonByteWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final StringBuilder floatText = new StringBuilder(16);
+    private byte[] buf;
+    private int count;
+    // Bit n is set once the container at depth n has its first element, so the next needs a comma
+    private long hasElement;
+    private int depth;
+    private boolean afterName;
+
+    JsonByteWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(64, initialCapacity)];
+    }
+
+    /**
+     * Start a new document, keeping the buffer.
+     */
+    void reset() {
+        count = 0;
+        hasElement = 0;
+        depth = 0;
+        afterName = false;
+    }
+
+    JsonByteWriter beginObject() {
+        beforeValue();
+        write('{');
+        push();
+        return this;
+    }
+
+    JsonByteWriter endObject() {
+        pop();
+        write('}');
+        return this;
+    }
+
+    JsonByteWriter beginArray() {
+        beforeValue();
+        write('[');
+        push();
+        return this;
+    }
+
+    JsonByteWriter endArray() {
+        pop();
+        write(']');
+        return this;
+    }
+
+    /**
+     * Write a key encoded with {@link #encodeKey}.
+     */
+    JsonByteWriter name(byte[] encodedKey) {
+        beforeName();
+        write(encodedKey, 0, encodedKey.length);
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Write a key that isn't known in advance, such as a world name.
+     */
+    JsonByteWriter name(String name) {
+        beforeName();
+        writeString(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonByteWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            write(NULL, 0, NULL.length);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    JsonByteWriter value(long value) {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * Write a duration the way PlayerData formats playtime ("12h 5m 3s"), without String.format.
+     */
+    JsonByteWriter durationValue(long totalSeconds) {
+        beforeValue();
+        write('"');
+        writeLong(totalSeconds / 3600);
+        write('h');
+        write(' ');
+        writeLong((totalSeconds % 3600) / 60);
+        write('m');
+        write(' ');
+        writeLong(totalSeconds % 60);
+        write('s');
+        write('"');
+        return this;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(LONG_MIN, 0, LONG_MIN.length);
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = count + digits - 1; i >= count; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+    }
+
+    /**
+     * Write a float in the same form as {@link Float#toString(float)}.
+     * Whole numbers below 10^7 (most stats) are written without going through a String.
+     */
+    JsonByteWriter value(float value) {
+        if (value == (long) value && Math.abs(value) < 1e7f && !(value == 0 && 1 / value < 0)) {
+            value((long) value);
+            write('.');
+            write('0');
+            return this;
+        }
+        beforeValue();
+        // StringBuilder formats floats in place, so the digits never become a String
+        floatText.setLength(0);
+        floatText.append(value);
+        ensure(floatText.length());
+        for (int i = 0; i < floatText.length(); i++) {
+            buf[count++] = (byte) floatText.charAt(i);
+        }
+        return this;
+    }
+
+    JsonByteWriter value(boolean value) {
+        beforeValue();
+        byte[] literal = value ? TRUE : FALSE;
+        write(literal, 0, literal.length);
+        return this;
+    }
+
+    /**
+     * Write a UUID in its standard 8-4-4-4-12 form without building its String.
+     */
+    JsonByteWriter value(UUID uuid) {
+        beforeValue();
+        ensure(38);
+        buf[count++] = '"';
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        writeHex(msb >>> 32, 8);
+        buf[count++] = '-';
+        writeHex(msb >>> 16, 4);
+        buf[count++] = '-';
+        writeHex(msb, 4);
+        buf[count++] = '-';
+        writeHex(lsb >>> 48, 4);
+        buf[count++] = '-';
+        writeHex(lsb, 12);
+        buf[count++] = '"';
+        return this;
+    }
+
+    int length() {
+        return count;
+    }
+
+    /**
+     * Copy of everything written so far, sized exactly.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * 64-bit FNV-1a over the first length bytes written.
+     */
+    long hash(int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= buf[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Encode a key once as its quoted form followed by a colon, for {@link #name(byte[])}.
+     */
+    static byte[] encodeKey(String name) {
+        JsonByteWriter writer = new JsonByteWriter(name.length() + 3);
+        writer.writeString(name);
+        writer.write(':');
+        return writer.toByteArray();
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buf[count + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        count += digits;
+    }
+
+    /**
+     * Quote, escape and UTF-8 encode a string, with the same escapes as {@link PlayerField#writeJsonString}.
+     */
+    private void writeString(String value) {
+        int length = value.length();
+        // Worst case: every char a six-byte escape
+        ensure(length * 6 + 2);
+        buf[count++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buf[count++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                buf[count++] = '\\';
+                buf[count++] = (byte) c;
+            } else if (c == '\n') {
+                buf[count++] = '\\';
+                buf[count++] = 'n';
+            } else if (c == '\r') {
+                buf[count++] = '\\';
+                buf[count++] = 'r';
+            } else if (c == '\t') {
+                buf[count++] = '\\';
+                buf[count++] = 't';
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                buf[count++] = '\\';
+                buf[count++] = 'u';
+                writeHex(c, 4);
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xc0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buf[count++] = (byte) (0xf0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[count++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like String.getBytes does
+                buf[count++] = '?';
+            } else {
+                buf[count++] = (byte) (0xe0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        buf[count++] = '"';
+    }
+
+    private void beforeName() {
+        if ((hasElement & (1L << depth)) != 0) {
+            write(',');
+        }
+        hasElement |= 1L << depth;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        beforeName();
+    }
+
+    private void push() {
+        depth++;
+        hasElement &= ~(1L << depth);
+    }
+
+    private void pop() {
+        depth--;
+    }
+
+    private void write(int b) {
+        ensure(1);
+        buf[count++] = (byte) b;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, count, length);
+        count += length;
+    }
+
+    private void ensure(int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
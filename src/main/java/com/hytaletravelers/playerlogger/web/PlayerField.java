@@ -0,0 +1,216 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Fields of a player record as exposed by the API, in their standard order.
+ * Each field reads its value without boxing numbers, and strings can be written as JSON or CSV text.
+ */
+enum PlayerField {
+    UUID("uuid", (Function<PlayerData, String>) pd -> pd.getUuid().toString()),
+    USERNAME("username", (Function<PlayerData, String>) PlayerData::getUsername),
+    PLAYTIME_SECONDS("playtimeSeconds", PlayerData::getTotalWithCurrentSession),
+    PLAYTIME_FORMATTED("playtimeFormatted", (Function<PlayerData, String>) PlayerData::getFormattedPlaytime),
+    ACTIVE_PLAYTIME_SECONDS("activePlaytimeSeconds", PlayerData::getActivePlaytimeSeconds),
+    IDLE_SECONDS("idleSeconds", PlayerData::getIdleWithCurrentSession),
+    ONLINE("online", (Predicate<PlayerData>) PlayerData::isOnline),
+    SESSION_START("sessionStart", PlayerData::getSessionStartMillis),
+    DAMAGE_DEALT("damageDealt", (ToDoubleFunction<PlayerData>) PlayerData::getDamageDealt),
+    PLAYER_KILLS("playerKills", PlayerData::getPlayerKills),
+    MOB_KILLS("mobKills", PlayerData::getMobKills),
+    DEATH_COUNT("deathCount", PlayerData::getDeathCount),
+    BLOCKS_PLACED("blocksPlaced", PlayerData::getBlocksPlaced),
+    BLOCKS_BROKEN("blocksBroken", PlayerData::getBlocksBroken);
+
+    enum Kind { STRING, LONG, DOUBLE, BOOLEAN }
+
+    private final String fieldName;
+    private final String jsonKey;
+    private final Kind kind;
+    private final Function<PlayerData, String> stringValue;
+    private final ToLongFunction<PlayerData> longValue;
+    private final ToDoubleFunction<PlayerData> doubleValue;
+    private final Predicate<PlayerData> booleanValue;
+
+    PlayerField(String fieldName, Function<PlayerData, String> value) {
+        this(fieldName, Kind.STRING, value, null, null, null);
+    }
+
+    PlayerField(String fieldName, ToLongFunction<PlayerData> value) {
+        this(fieldName, Kind.LONG, null, value, null, null);
+    }
+
+    PlayerField(String fieldName, ToDoubleFunction<PlayerData> value) {
+        this(fieldName, Kind.DOUBLE, null, null, value, null);
+    }
+
+    PlayerField(String fieldName, Predicate<PlayerData> value) {
+        this(fieldName, Kind.BOOLEAN, null, null, null, value);
+    }
+
+    PlayerField(String fieldName, Kind kind, Function<PlayerData, String> stringValue, ToLongFunction<PlayerData> longValue,
+                ToDoubleFunction<PlayerData> doubleValue, Predicate<PlayerData> booleanValue) {
+        this.fieldName = fieldName;
+        this.jsonKey = "\"" + fieldName + "\":";
+        this.kind = kind;
+        this.stringValue = stringValue;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+        this.booleanValue = booleanValue;
+    }
+
+    String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * The quoted field name followed by a colon, ready to precede a JSON value.
+     */
+    String getJsonKey() {
+        return jsonKey;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String stringOf(PlayerData player) {
+        return stringValue.apply(player);
+    }
+
+    long longOf(PlayerData player) {
+        return longValue.applyAsLong(player);
+    }
+
+    /**
+     * Value of a DOUBLE field; the underlying stats are floats.
+     */
+    float floatOf(PlayerData player) {
+        return (float) doubleValue.applyAsDouble(player);
+    }
+
+    boolean booleanOf(PlayerData player) {
+        return booleanValue.test(player);
+    }
+
+    /**
+     * Whether the field is a combat or block counter that is also tracked per world.
+     */
+    boolean isWorldScoped() {
+        return switch (this) {
+            case DAMAGE_DEALT, PLAYER_KILLS, MOB_KILLS, DEATH_COUNT, BLOCKS_PLACED, BLOCKS_BROKEN -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Value of a world-scoped LONG field within one world.
+     */
+    long longOf(WorldStats stats) {
+        return switch (this) {
+            case PLAYER_KILLS -> stats.getPlayerKills();
+            case MOB_KILLS -> stats.getMobKills();
+            case DEATH_COUNT -> stats.getDeathCount();
+            case BLOCKS_PLACED -> stats.getBlocksPlaced();
+            case BLOCKS_BROKEN -> stats.getBlocksBroken();
+            default -> throw new IllegalStateException(fieldName + " is not a per-world counter");
+        };
+    }
+
+    /**
+     * Value of a world-scoped DOUBLE field within one world.
+     */
+    float floatOf(WorldStats stats) {
+        if (this != DAMAGE_DEALT) {
+            throw new IllegalStateException(fieldName + " is not a per-world float");
+        }
+        return stats.getDamageDealt();
+    }
+
+    static PlayerField fromName(String name) {
+        for (PlayerField field : values()) {
+            if (field.fieldName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a comma-separated field list, or return all fields if it is null or empty.
+     *
+     * @throws IllegalArgumentException naming the first unknown field
+     */
+    static List<PlayerField> parseList(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of(values());
+        }
+        List<PlayerField> parsed = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            PlayerField field = fromName(trimmed);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("No fields requested");
+        }
+        return parsed;
+    }
+
+    static void writeJsonString(String value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    static void writeCsvString(String value, Appendable out) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,202 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.data.PlayerIndex;
+import com.hytaletravelers.playerlogger.data.PlayerSort;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+
+import java.util.*;
+
+/**
+ * Parsed /api/players query: filtering (online, q, world), sorting (sort, order),
+ * paging (limit plus offset or cursor) and the fields to return (fields).
+ * Requests page through the manager's cached rankings, which also cover the world and
+ * online filters; a name prefix narrows to the index's name range and only ranks that.
+ */
+final class PlayerListQuery {
+    static final int MAX_LIMIT = 1000;
+
+    final PlayerSort sort;
+    final boolean descending;
+    final int offset;
+    final int limit;
+    final Boolean online;
+    final String prefix;
+    final String world;
+    final PlayerIndex.Cursor cursor;
+    final PlayerProjection projection;
+
+    private PlayerListQuery(PlayerSort sort, boolean descending, int offset, int limit,
+                            Boolean online, String prefix, String world, PlayerIndex.Cursor cursor,
+                            PlayerProjection projection) {
+        this.sort = sort;
+        this.descending = descending;
+        this.offset = offset;
+        this.limit = limit;
+        this.online = online;
+        this.prefix = prefix;
+        this.world = world;
+        this.cursor = cursor;
+        this.projection = projection;
+    }
+
+    /**
+     * Parse query parameters.
+     *
+     * @param defaultSort sort used when none is given
+     * @throws IllegalArgumentException with a client-facing message if a parameter is invalid
+     */
+    static PlayerListQuery parse(Map<String, String> params, PlayerSort defaultSort) {
+        PlayerSort sort = defaultSort;
+        String sortParam = params.get("sort");
+        if (sortParam != null) {
+            sort = PlayerSort.fromParam(sortParam);
+            if (sort == null) {
+                throw new IllegalArgumentException("Unknown sort: " + sortParam);
+            }
+        }
+
+        boolean descending = sort.isDescendingByDefault();
+        String order = params.get("order");
+        if (order != null) {
+            if (order.equalsIgnoreCase("desc")) {
+                descending = true;
+            } else if (order.equalsIgnoreCase("asc")) {
+                descending = false;
+            } else {
+                throw new IllegalArgumentException("order must be asc or desc");
+            }
+        }
+
+        int offset = parseInt(params, "offset", 0);
+        int limit = parseInt(params, "limit", -1);
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit == 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        Boolean online = null;
+        String onlineParam = params.get("online");
+        if (onlineParam != null) {
+            if (!onlineParam.equalsIgnoreCase("true") && !onlineParam.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("online must be true or false");
+            }
+            online = Boolean.parseBoolean(onlineParam);
+        }
+
+        String prefix = params.get("q");
+        if (prefix != null && prefix.isEmpty()) {
+            prefix = null;
+        }
+
+        PlayerIndex.Cursor cursor = null;
+        String cursorParam = params.get("cursor");
+        if (cursorParam != null && !cursorParam.isEmpty()) {
+            cursor = PlayerIndex.Cursor.decode(cursorParam);
+            if (cursor == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        PlayerProjection projection = PlayerProjection.of(params.get("fields"));
+
+        return new PlayerListQuery(sort, descending, offset, limit, online, prefix, params.get("world"), cursor, projection);
+    }
+
+    /**
+     * Run the query against the current data.
+     */
+    Page execute(PlayerDataManager manager) {
+        PlayerIndex.Ranking ranking = prefix != null ? rankByPrefix(manager) : manager.getRanking(sort, world, online);
+
+        int size = ranking.size();
+        int start = cursor != null ? ranking.positionAfter(cursor, descending) : 0;
+        start = (int) Math.min(size, (long) start + offset);
+        int end = limit < 0 ? size : (int) Math.min(size, (long) start + limit);
+
+        String nextCursor = end < size && end > start ? ranking.cursorAt(end - 1, descending).encode() : null;
+        return new Page(ranking, descending, start, end, nextCursor);
+    }
+
+    private PlayerIndex.Ranking rankByPrefix(PlayerDataManager manager) {
+        List<PlayerData> matches = new ArrayList<>();
+        for (PlayerData pd : manager.getIndex().withNamePrefix(prefix)) {
+            if (online != null && pd.isOnline() != online) {
+                continue;
+            }
+            if (world != null && pd.getWorldStats(world) == null) {
+                continue;
+            }
+            matches.add(pd);
+        }
+
+        if (world == null) {
+            return PlayerIndex.Ranking.of(sort, matches, sort::keyOf, 0);
+        }
+        return PlayerIndex.Ranking.of(sort, matches, pd -> {
+            WorldStats ws = pd.getWorldStats(world);
+            return sort.keyOf(pd, ws);
+        }, 0);
+    }
+
+    private static int parseInt(Map<String, String> params, String name, int fallback) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    /**
+     * One page of a ranking. Rows are read straight from the ranking's snapshot arrays,
+     * so iterating a page of any size allocates nothing per row.
+     */
+    static final class Page implements Iterable<PlayerData> {
+        final int total;
+        final String nextCursor;
+        private final PlayerIndex.Ranking ranking;
+        private final boolean descending;
+        private final int start;
+        private final int end;
+
+        Page(PlayerIndex.Ranking ranking, boolean descending, int start, int end, String nextCursor) {
+            this.ranking = ranking;
+            this.descending = descending;
+            this.start = start;
+            this.end = end;
+            this.total = ranking.size();
+            this.nextCursor = nextCursor;
+        }
+
+        int size() {
+            return end - start;
+        }
+
+        @Override
+        public Iterator<PlayerData> iterator() {
+            return new Iterator<>() {
+                private int position = start;
+
+                @Override
+                public boolean hasNext() {
+                    return position < end;
+                }
+
+                @Override
+                public PlayerData next() {
+                    if (position >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return ranking.get(position++, descending);
+                }
+            };
+        }
+    }
+}
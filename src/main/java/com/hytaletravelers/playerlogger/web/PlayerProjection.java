@@ -0,0 +1,177 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.google.gson.stream.JsonWriter;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serializer for one set of player fields (a sparse fieldset like ?fields=uuid,username,playerKills).
+ * Each field set is compiled once into arrays of field writers that read the stat
+ * and write it to a JsonWriter, JsonByteWriter or CborWriter directly, without reflection or intermediate maps.
+ */
+final class PlayerProjection {
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, PlayerProjection> CACHE = new ConcurrentHashMap<>();
+
+    static final PlayerProjection ALL = new PlayerProjection(List.of(PlayerField.values()));
+
+    private final List<PlayerField> fields;
+    private final FieldWriter[] writers;
+    private final CborFieldWriter[] cborWriters;
+    private final ByteFieldWriter[] byteWriters;
+
+    private PlayerProjection(List<PlayerField> fields) {
+        this.fields = List.copyOf(fields);
+        this.writers = new FieldWriter[fields.size()];
+        this.cborWriters = new CborFieldWriter[fields.size()];
+        this.byteWriters = new ByteFieldWriter[fields.size()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = compile(fields.get(i));
+            cborWriters[i] = compileCbor(fields.get(i));
+            byteWriters[i] = compileBytes(fields.get(i));
+        }
+    }
+
+    /**
+     * Get the projection for a comma-separated field list, or all fields if it is null or empty.
+     * Fields are always written in standard order, so "a,b" and "b,a" share one serializer.
+     *
+     * @throws IllegalArgumentException naming the first unknown field
+     */
+    static PlayerProjection of(String fieldList) {
+        if (fieldList == null || fieldList.isBlank()) {
+            return ALL;
+        }
+
+        List<PlayerField> fields = new ArrayList<>(PlayerField.parseList(fieldList));
+        fields.sort(Comparator.naturalOrder());
+        if (fields.size() == PlayerField.values().length) {
+            return ALL;
+        }
+
+        String key = fields.stream().map(PlayerField::getFieldName).collect(Collectors.joining(","));
+        PlayerProjection projection = CACHE.get(key);
+        if (projection == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            projection = CACHE.computeIfAbsent(key, k -> new PlayerProjection(fields));
+        }
+        return projection;
+    }
+
+    /**
+     * Write the player as a JSON object.
+     *
+     * @param world if set, combat and block counters are taken from this world when the player has stats there
+     */
+    void write(JsonWriter out, PlayerData player, String world) throws IOException {
+        out.beginObject();
+        writeFields(out, player, world != null ? player.getWorldStats(world) : null);
+        out.endObject();
+    }
+
+    /**
+     * Write the projected fields into an object the caller has already begun.
+     */
+    void writeFields(JsonWriter out, PlayerData player, WorldStats worldStats) throws IOException {
+        for (FieldWriter writer : writers) {
+            writer.write(out, player, worldStats);
+        }
+    }
+
+    /**
+     * Write the projected fields into an object the caller has already begun, straight to bytes.
+     */
+    void writeFields(JsonByteWriter out, PlayerData player, WorldStats worldStats) {
+        for (ByteFieldWriter writer : byteWriters) {
+            writer.write(out, player, worldStats);
+        }
+    }
+
+    /**
+     * Write the player as a CBOR map with the same keys and world handling as {@link #write(JsonWriter, PlayerData, String)}.
+     */
+    void write(CborWriter out, PlayerData player, String world) throws IOException {
+        WorldStats worldStats = world != null ? player.getWorldStats(world) : null;
+        out.beginMap(cborWriters.length);
+        for (CborFieldWriter writer : cborWriters) {
+            writer.write(out, player, worldStats);
+        }
+    }
+
+    private static FieldWriter compile(PlayerField field) {
+        String name = field.getFieldName();
+        return switch (field.getKind()) {
+            case STRING -> (out, pd, ws) -> out.name(name).value(field.stringOf(pd));
+            case BOOLEAN -> (out, pd, ws) -> out.name(name).value(field.booleanOf(pd));
+            case LONG -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.name(name).value(ws != null ? field.longOf(ws) : field.longOf(pd))
+                    : (out, pd, ws) -> out.name(name).value(field.longOf(pd));
+            // JsonWriter has no float overload; writing the float's own decimal form keeps 1.1f as 1.1
+            case DOUBLE -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.name(name).jsonValue(Float.toString(ws != null ? field.floatOf(ws) : field.floatOf(pd)))
+                    : (out, pd, ws) -> out.name(name).jsonValue(Float.toString(field.floatOf(pd)));
+        };
+    }
+
+    private static CborFieldWriter compileCbor(PlayerField field) {
+        // Keys are encoded once per projection rather than once per player
+        byte[] key = CborWriter.encodeText(field.getFieldName());
+        return switch (field.getKind()) {
+            case STRING -> (out, pd, ws) -> out.raw(key).value(field.stringOf(pd));
+            case BOOLEAN -> (out, pd, ws) -> out.raw(key).value(field.booleanOf(pd));
+            case LONG -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.raw(key).value(ws != null ? field.longOf(ws) : field.longOf(pd))
+                    : (out, pd, ws) -> out.raw(key).value(field.longOf(pd));
+            case DOUBLE -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.raw(key).value(ws != null ? field.floatOf(ws) : field.floatOf(pd))
+                    : (out, pd, ws) -> out.raw(key).value(field.floatOf(pd));
+        };
+    }
+
+    private static ByteFieldWriter compileBytes(PlayerField field) {
+        byte[] key = JsonByteWriter.encodeKey(field.getFieldName());
+        if (field == PlayerField.UUID) {
+            // Written from its two longs rather than through UUID.toString()
+            return (out, pd, ws) -> out.name(key).value(pd.getUuid());
+        }
+        if (field == PlayerField.PLAYTIME_FORMATTED) {
+            // Same text as getFormattedPlaytime(), which goes through String.format
+            return (out, pd, ws) -> out.name(key).durationValue(pd.getTotalWithCurrentSession());
+        }
+        return switch (field.getKind()) {
+            case STRING -> (out, pd, ws) -> out.name(key).value(field.stringOf(pd));
+            case BOOLEAN -> (out, pd, ws) -> out.name(key).value(field.booleanOf(pd));
+            case LONG -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.name(key).value(ws != null ? field.longOf(ws) : field.longOf(pd))
+                    : (out, pd, ws) -> out.name(key).value(field.longOf(pd));
+            case DOUBLE -> field.isWorldScoped()
+                    ? (out, pd, ws) -> out.name(key).value(ws != null ? field.floatOf(ws) : field.floatOf(pd))
+                    : (out, pd, ws) -> out.name(key).value(field.floatOf(pd));
+        };
+    }
+
+    @FunctionalInterface
+    private interface ByteFieldWriter {
+        void write(JsonByteWriter out, PlayerData player, WorldStats worldStats);
+    }
+
+    @FunctionalInterface
+    private interface CborFieldWriter {
+        void write(CborWriter out, PlayerData player, WorldStats worldStats) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(JsonWriter out, PlayerData player, WorldStats worldStats) throws IOException;
+    }
+}
@@ -0,0 +1,71 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+
+/**
+ * On-disk spool for the push payload the server hasn't accepted yet.
+ * <p>
+ * Every payload is either a full snapshot or a delta from the last acknowledged sequence, so a
+ * newer payload always covers everything an older unsent one did. The outbox therefore holds a
+ * single entry: storing a payload replaces the previous one, and a long outage leaves one file
+ * behind instead of a backlog of stale snapshots. The entry survives restarts and is delivered
+ * before anything newer.
+ */
+final class PushOutbox {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final Path file;
+    private final Path tempFile;
+
+    PushOutbox(Path dataFolder, String fileName) {
+        this.file = dataFolder.resolve(fileName);
+        this.tempFile = dataFolder.resolve(fileName + ".tmp");
+    }
+
+    /**
+     * Replace the spooled payload. Written to a temp file first so a crash never leaves half a payload.
+     */
+    void store(byte[] json) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(tempFile, json);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to write push outbox");
+        }
+    }
+
+    /**
+     * @return the spooled payload, or null if there is none
+     */
+    byte[] load() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to read push outbox");
+            return null;
+        }
+    }
+
+    void clear() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to clear push outbox");
+        }
+    }
+}
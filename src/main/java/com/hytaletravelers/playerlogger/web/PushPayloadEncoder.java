@@ -0,0 +1,170 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Encodes push payloads into one reusable {@link JsonByteWriter}, reading primitive stats straight
+ * from the players in the order the caller hands them over (already ranked for full snapshots).
+ * After the first few pushes have grown the buffer, the only per-push allocation is the exact-size
+ * copy of the body, which has to outlive the encoder while it is sent and possibly retried.
+ * Used only on the push thread.
+ */
+final class PushPayloadEncoder {
+    private static final byte[] TYPE = JsonByteWriter.encodeKey("type");
+    private static final byte[] BASE_SEQUENCE = JsonByteWriter.encodeKey("baseSequence");
+    private static final byte[] SEQUENCE = JsonByteWriter.encodeKey("sequence");
+    private static final byte[] STATS = JsonByteWriter.encodeKey("stats");
+    private static final byte[] TOTAL_PLAYERS = JsonByteWriter.encodeKey("totalPlayers");
+    private static final byte[] ONLINE_PLAYERS = JsonByteWriter.encodeKey("onlinePlayers");
+    private static final byte[] TOTAL_PLAYTIME = JsonByteWriter.encodeKey("totalPlaytimeSeconds");
+    private static final byte[] TOTAL_ACTIVE_PLAYTIME = JsonByteWriter.encodeKey("totalActivePlaytimeSeconds");
+    private static final byte[] TOTAL_DAMAGE = JsonByteWriter.encodeKey("totalDamageDealt");
+    private static final byte[] TOTAL_PLAYER_KILLS = JsonByteWriter.encodeKey("totalPlayerKills");
+    private static final byte[] TOTAL_MOB_KILLS = JsonByteWriter.encodeKey("totalMobKills");
+    private static final byte[] TOTAL_DEATHS = JsonByteWriter.encodeKey("totalDeaths");
+    private static final byte[] TOTAL_BLOCKS_PLACED = JsonByteWriter.encodeKey("totalBlocksPlaced");
+    private static final byte[] TOTAL_BLOCKS_BROKEN = JsonByteWriter.encodeKey("totalBlocksBroken");
+    private static final byte[] PLAYERS = JsonByteWriter.encodeKey("players");
+    private static final byte[] REMOVED = JsonByteWriter.encodeKey("removed");
+    private static final byte[] SERVER_NAME = JsonByteWriter.encodeKey("serverName");
+    private static final byte[] PUBLIC_LISTING = JsonByteWriter.encodeKey("publicListing");
+    private static final byte[] PLAYTIME_RANKING = JsonByteWriter.encodeKey("playtimeRanking");
+    private static final byte[] LAST_UPDATED = JsonByteWriter.encodeKey("lastUpdated");
+    private static final byte[] WORLDS = JsonByteWriter.encodeKey("worlds");
+    private static final byte[] DAMAGE_DEALT = JsonByteWriter.encodeKey("damageDealt");
+    private static final byte[] PLAYER_KILLS = JsonByteWriter.encodeKey("playerKills");
+    private static final byte[] MOB_KILLS = JsonByteWriter.encodeKey("mobKills");
+    private static final byte[] DEATH_COUNT = JsonByteWriter.encodeKey("deathCount");
+    private static final byte[] BLOCKS_PLACED = JsonByteWriter.encodeKey("blocksPlaced");
+    private static final byte[] BLOCKS_BROKEN = JsonByteWriter.encodeKey("blocksBroken");
+
+    private final PlayerProjection projection;
+    private final String serverName;
+    private final boolean publicListing;
+    private final boolean rankByActivePlaytime;
+    private final JsonByteWriter out = new JsonByteWriter(64 * 1024);
+
+    PushPayloadEncoder(PlayerProjection projection, String serverName, boolean publicListing, boolean rankByActivePlaytime) {
+        this.projection = projection;
+        this.serverName = serverName;
+        this.publicListing = publicListing;
+        this.rankByActivePlaytime = rankByActivePlaytime;
+    }
+
+    /**
+     * Encode a payload: server-wide aggregates over allPlayers plus the given players.
+     * Tagged payloads (for delta-mode targets) add the payload type and sequence numbers; classic
+     * full pushes leave them out. lastUpdated is written last so the content hash can cover
+     * everything before it.
+     *
+     * @param playerCount number of players to include
+     * @param players     the included players by position, e.g. a ranking's get
+     */
+    DataPushService.Payload encode(Collection<PlayerData> allPlayers, int onlineCount, boolean tagged, String type,
+                                   long baseSequence, long sequence, int playerCount, IntFunction<PlayerData> players,
+                                   List<UUID> removed) {
+        long totalPlaytime = 0;
+        long totalActivePlaytime = 0;
+        float totalDamage = 0;
+        int totalPlayerKills = 0;
+        int totalMobKills = 0;
+        int totalDeaths = 0;
+        int totalBlocksPlaced = 0;
+        int totalBlocksBroken = 0;
+
+        for (PlayerData pd : allPlayers) {
+            totalPlaytime += pd.getTotalWithCurrentSession();
+            totalActivePlaytime += pd.getActivePlaytimeSeconds();
+            totalDamage += pd.getDamageDealt();
+            totalPlayerKills += pd.getPlayerKills();
+            totalMobKills += pd.getMobKills();
+            totalDeaths += pd.getDeathCount();
+            totalBlocksPlaced += pd.getBlocksPlaced();
+            totalBlocksBroken += pd.getBlocksBroken();
+        }
+
+        out.reset();
+        out.beginObject();
+
+        if (tagged) {
+            out.name(TYPE).value(type);
+            if (baseSequence >= 0) {
+                out.name(BASE_SEQUENCE).value(baseSequence);
+            }
+            out.name(SEQUENCE).value(sequence);
+        }
+
+        out.name(STATS).beginObject();
+        out.name(TOTAL_PLAYERS).value(allPlayers.size());
+        out.name(ONLINE_PLAYERS).value(onlineCount);
+        out.name(TOTAL_PLAYTIME).value(totalPlaytime);
+        out.name(TOTAL_ACTIVE_PLAYTIME).value(totalActivePlaytime);
+        out.name(TOTAL_DAMAGE).value(totalDamage);
+        out.name(TOTAL_PLAYER_KILLS).value(totalPlayerKills);
+        out.name(TOTAL_MOB_KILLS).value(totalMobKills);
+        out.name(TOTAL_DEATHS).value(totalDeaths);
+        out.name(TOTAL_BLOCKS_PLACED).value(totalBlocksPlaced);
+        out.name(TOTAL_BLOCKS_BROKEN).value(totalBlocksBroken);
+        out.endObject();
+
+        out.name(PLAYERS).beginArray();
+        for (int i = 0; i < playerCount; i++) {
+            writePlayerEntry(players.apply(i));
+        }
+        out.endArray();
+
+        if (tagged && type.equals("delta")) {
+            out.name(REMOVED).beginArray();
+            for (UUID uuid : removed) {
+                out.value(uuid);
+            }
+            out.endArray();
+        }
+
+        // Include custom server name if configured
+        if (serverName != null && !serverName.isEmpty()) {
+            out.name(SERVER_NAME).value(serverName);
+        }
+
+        // Include public listing preference
+        out.name(PUBLIC_LISTING).value(publicListing);
+        out.name(PLAYTIME_RANKING).value(rankByActivePlaytime ? "active" : "total");
+
+        int contentLength = out.length();
+        out.name(LAST_UPDATED).value(System.currentTimeMillis());
+        out.endObject();
+
+        return new DataPushService.Payload(out.toByteArray(), baseSequence, sequence, out.hash(contentLength));
+    }
+
+    private void writePlayerEntry(PlayerData pd) {
+        out.beginObject();
+        projection.writeFields(out, pd, null);
+
+        // Per-world breakdown, only for players with stats in at least one world
+        Map<String, WorldStats> worldStats = pd.getAllWorldStats();
+        if (!worldStats.isEmpty()) {
+            out.name(WORLDS).beginObject();
+            for (Map.Entry<String, WorldStats> entry : worldStats.entrySet()) {
+                WorldStats ws = entry.getValue();
+                out.name(entry.getKey()).beginObject();
+                out.name(DAMAGE_DEALT).value(ws.getDamageDealt());
+                out.name(PLAYER_KILLS).value(ws.getPlayerKills());
+                out.name(MOB_KILLS).value(ws.getMobKills());
+                out.name(DEATH_COUNT).value(ws.getDeathCount());
+                out.name(BLOCKS_PLACED).value(ws.getBlocksPlaced());
+                out.name(BLOCKS_BROKEN).value(ws.getBlocksBroken());
+                out.endObject();
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+}
@@ -0,0 +1,554 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.google.gson.stream.JsonWriter;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.data.ChangeLog;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.http.SharedHttpClient;
+import com.hytaletravelers.playerlogger.metrics.PluginMetrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * Pushes to one target: its own schedule, format, retries, outbox and redirect state.
+ * <p>
+ * {@link #poll} runs on the push thread every tick and starts a push when one is due, taking the
+ * payload from the tick's shared {@link DataPushService.Encodings}. Requests are sent with
+ * sendAsync, so a slow target never holds up the others. Only one push per target is in flight;
+ * a push that falls due meanwhile is either sent right after it finishes ("latest") or dropped
+ * ("drop"). Payloads supersede each other, so neither policy ever needs more than one slot.
+ * <p>
+ * In delta mode the first push is a full snapshot tagged with the change sequence, and later
+ * pushes carry only players changed since the last sequence the server accepted. A full snapshot
+ * is sent again every pushFullResyncMinutes, whenever the change log no longer covers the
+ * acknowledged sequence, and right away when the server rejects a delta.
+ * <p>
+ * When the server is unreachable (network errors, 408, 429 or 5xx) the payload is kept in the
+ * outbox and the same bytes are retried with jittered exponential backoff instead of waiting for
+ * the next interval. Once the outbox payload is an interval old it is dropped and the next retry
+ * builds a fresh one, which covers everything since the last accepted push; so is a delta whose
+ * base is no longer the acknowledged sequence. Each payload that goes into the outbox is also
+ * spooled to the {@link PushOutbox} file, which is removed once the server accepts a push. A
+ * payload found there at startup is sent before anything else, and is never superseded, since
+ * after a crash it may hold data that never reached players.json.
+ * <p>
+ * With adaptive scheduling a push is due once pushAdaptiveChanges players have changed
+ * (but not within pushMinIntervalSeconds of the last one), after the target's interval while
+ * anyone is online or something changed, and otherwise only every pushMaxIntervalSeconds.
+ */
+final class PushWorker {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Statuses with which a server says it can't apply a delta and wants a full snapshot
+    private static final Set<Integer> DELTA_REJECTED = Set.of(409, 410, 412, 422);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DataPushService service;
+    private final Executor pushThread;
+    private final String url;
+    private final int intervalSeconds;
+    private final boolean adaptive;
+    private final int minIntervalSeconds;
+    private final int maxIntervalSeconds;
+    private final long adaptiveChanges;
+    private final boolean deltaEnabled;
+    private final long fullResyncMillis;
+    private final boolean skipUnchanged;
+    private final boolean dropWhenBusy;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+    private final long outboxMaxAgeMillis;
+    private final PushOutbox spool;
+    // Scheduling clock, in epoch milliseconds
+    private final LongSupplier clock;
+
+    // Where pushes go; updated when the server answers with a permanent redirect
+    private volatile URI pushTarget;
+
+    // Sequence the server last accepted, or -1 until a full snapshot has been accepted
+    private long ackedSequence = -1;
+    private long lastFullPushMillis;
+    // Content hash of the last payload the server accepted, or null
+    private Long lastAcceptedHash;
+    private boolean gzipEnabled;
+    // Whether the server has accepted a gzipped body; until then any 4xx may be a refusal of gzip
+    private boolean gzipConfirmed;
+    private boolean heartbeatsAccepted = true;
+
+    // Last payload sent this cycle, kept in the outbox if the server turns out to be unreachable
+    private DataPushService.Payload lastAttempt;
+    // Payload the server hasn't accepted yet and when it went in, retried until superseded
+    private DataPushService.Payload outbox;
+    private long outboxMillis;
+    // Whether the outbox payload was read back from the spool at startup
+    private boolean outboxRestored;
+    // Whether the spool file holds a payload
+    private boolean spooled;
+    private int consecutiveFailures;
+
+    // Scheduling state, only touched on the push thread
+    private boolean inFlight;
+    private boolean catchUp;
+    private long nextAttemptMillis;
+    private long lastCycleMillis;
+    private long lastCycleChanges;
+
+    PushWorker(DataPushService service, Executor pushThread, PluginConfig config,
+               PluginConfig.PushTarget target, PushOutbox spool) {
+        this(service, pushThread, config, target, spool, System::currentTimeMillis);
+    }
+
+    PushWorker(DataPushService service, Executor pushThread, PluginConfig config,
+               PluginConfig.PushTarget target, PushOutbox spool, LongSupplier clock) {
+        this.service = service;
+        this.pushThread = pushThread;
+        this.url = target.url;
+        this.intervalSeconds = Math.max(1, target.intervalSeconds);
+        this.adaptive = target.adaptive;
+        this.minIntervalSeconds = Math.max(1, Math.min(config.pushMinIntervalSeconds, intervalSeconds));
+        this.maxIntervalSeconds = Math.max(intervalSeconds, config.pushMaxIntervalSeconds);
+        this.adaptiveChanges = Math.max(1, config.pushAdaptiveChanges);
+        this.deltaEnabled = target.deltaEnabled;
+        this.fullResyncMillis = TimeUnit.MINUTES.toMillis(Math.max(1, config.pushFullResyncMinutes));
+        this.gzipEnabled = target.compression;
+        this.skipUnchanged = target.skipUnchanged;
+        this.dropWhenBusy = "drop".equals(target.backpressure == null ? null : target.backpressure.toLowerCase(Locale.ROOT));
+        this.retryBaseSeconds = Math.max(1, config.pushRetryBaseSeconds);
+        this.retryMaxSeconds = Math.max(retryBaseSeconds, config.pushRetryMaxSeconds);
+        this.outboxMaxAgeMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+        this.spool = spool;
+        this.clock = clock;
+    }
+
+    /**
+     * Log the target's settings, pick up a spooled payload and schedule the first push.
+     */
+    void start(long firstPushMillis) {
+        if (adaptive) {
+            LOGGER.at(Level.INFO).log("[PlayerLogger] Pushing to: %s - every %d-%d seconds depending on activity",
+                    url, minIntervalSeconds, maxIntervalSeconds);
+        } else {
+            LOGGER.at(Level.INFO).log("[PlayerLogger] Pushing to: %s - every %d seconds", url, intervalSeconds);
+        }
+        if (deltaEnabled) {
+            LOGGER.at(Level.INFO).log("[PlayerLogger] Delta pushes enabled for %s - full snapshot every %d minutes",
+                    url, TimeUnit.MILLISECONDS.toMinutes(fullResyncMillis));
+        }
+
+        pushTarget = URI.create(url);
+        byte[] spooledBody = spool.load();
+        if (spooledBody != null) {
+            outbox = new DataPushService.Payload(spooledBody);
+            outboxMillis = firstPushMillis;
+            outboxRestored = true;
+            spooled = true;
+            LOGGER.at(Level.INFO).log("[PlayerLogger] Found a push to %s that wasn't delivered before the last shutdown, sending it first", url);
+        }
+        nextAttemptMillis = firstPushMillis;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * When the next push may start, on the worker's clock. Read on the push thread.
+     */
+    long getNextAttemptMillis() {
+        return nextAttemptMillis;
+    }
+
+    /**
+     * Whether a push is being sent. Read on the push thread.
+     */
+    boolean isInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Start a push if one is due. Called on the push thread.
+     */
+    void poll(long now, DataPushService.Encodings encodings) {
+        if (now < nextAttemptMillis || !isDue(now)) {
+            return;
+        }
+        if (inFlight) {
+            if (!dropWhenBusy) {
+                catchUp = true;
+            }
+            return;
+        }
+
+        inFlight = true;
+        lastAttempt = null;
+        lastCycleMillis = now;
+        // Replaced when the push completes; until then a push falling due means this one is slow
+        nextAttemptMillis = now + TimeUnit.SECONDS.toMillis(adaptive ? minIntervalSeconds : intervalSeconds);
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        if (manager != null) {
+            lastCycleChanges = manager.getChangeLog().getChangeCount();
+        }
+
+        CompletableFuture<Integer> cycle;
+        try {
+            cycle = runCycle(now, encodings);
+        } catch (Exception e) {
+            cycle = CompletableFuture.failedFuture(e);
+        }
+        cycle.whenCompleteAsync((status, e) -> {
+            if (e != null) {
+                // Send failures are reported with the retry below, so keep their stack traces out of the way
+                LOGGER.at(lastAttempt == null ? Level.WARNING : Level.FINE).withCause(e)
+                        .log("[PlayerLogger] Failed to push data to %s", url);
+            }
+            long delaySeconds = afterCycle(e != null ? -1 : status);
+            if (catchUp && consecutiveFailures == 0) {
+                // A push fell due while this one was in flight; send the latest data on the next tick
+                nextAttemptMillis = clock.getAsLong();
+            } else {
+                nextAttemptMillis = clock.getAsLong() + TimeUnit.SECONDS.toMillis(delaySeconds);
+            }
+            catchUp = false;
+            inFlight = false;
+        }, pushThread);
+    }
+
+    /**
+     * Whether a push is due. Retries are always due once their time comes;
+     * adaptive pushes also wait for enough changes or the interval for the activity level.
+     */
+    private boolean isDue(long now) {
+        if (!adaptive || consecutiveFailures > 0) {
+            return true;
+        }
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        if (manager == null) {
+            return false;
+        }
+
+        long elapsedSeconds = (now - lastCycleMillis) / 1000;
+        if (elapsedSeconds < minIntervalSeconds) {
+            return false;
+        }
+        long pending = manager.getChangeLog().getChangeCount() - lastCycleChanges;
+        if (pending >= adaptiveChanges) {
+            return true;
+        }
+        boolean active = pending > 0 || manager.getOnlineCount() > 0;
+        return elapsedSeconds >= (active ? intervalSeconds : maxIntervalSeconds);
+    }
+
+    /**
+     * Update the outbox and failure count after a cycle.
+     *
+     * @return seconds until the next cycle
+     */
+    private long afterCycle(int status) {
+        long nextDelay = adaptive ? minIntervalSeconds : intervalSeconds;
+        if (lastAttempt == null) {
+            // Nothing was sent
+            return nextDelay;
+        }
+
+        if (isRetryable(status)) {
+            consecutiveFailures++;
+            if (outbox != lastAttempt) {
+                // Written once per payload, not on every retry
+                outbox = lastAttempt;
+                outboxMillis = clock.getAsLong();
+                spool.store(outbox.body);
+                spooled = true;
+            }
+            long delay = retryDelaySeconds(consecutiveFailures);
+            LOGGER.at(Level.WARNING).log("[PlayerLogger] Push server %s unavailable, retrying in %d seconds (attempt %d)",
+                    url, delay, consecutiveFailures);
+            return delay;
+        }
+
+        if (consecutiveFailures > 0 && isSuccess(status)) {
+            LOGGER.at(Level.INFO).log("[PlayerLogger] Push server %s reachable again after %d failed attempts",
+                    url, consecutiveFailures);
+        }
+        consecutiveFailures = 0;
+        // Accepted, or rejected for good: either way retrying this payload won't help
+        outbox = null;
+        if (spooled) {
+            spool.clear();
+            spooled = false;
+        }
+        return nextDelay;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: between half and all of base * 2^(failures - 1), capped.
+     */
+    private long retryDelaySeconds(int failures) {
+        long delay = retryBaseSeconds << Math.min(failures - 1, 20);
+        delay = Math.min(delay, retryMaxSeconds);
+        long half = delay / 2;
+        return delay - half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Network errors, timeouts, rate limits and server errors; other statuses won't change on retry.
+     */
+    private static boolean isRetryable(int status) {
+        return status < 0 || status == 408 || status == 429 || status >= 500;
+    }
+
+    /**
+     * The outbox payload if it should be retried as is, or null once it is superseded: after an
+     * interval, fresh data is worth more than the old bytes, and a delta is only worth sending on
+     * top of the sequence the server has. A payload restored from the spool is kept until delivered.
+     */
+    private DataPushService.Payload retryPayload(long now) {
+        if (outbox != null && !outboxRestored && (now - outboxMillis >= outboxMaxAgeMillis
+                || outbox.isDelta() && outbox.baseSequence != ackedSequence)) {
+            LOGGER.at(Level.FINE).log("[PlayerLogger] Outbox payload for %s superseded, building a fresh one", url);
+            outbox = null;
+        }
+        return outbox;
+    }
+
+    /**
+     * Start one push: the outbox payload if there is one to retry, otherwise a fresh full snapshot
+     * or delta. A payload restored from the spool is followed by a fresh one once it is delivered
+     * (or rejected for good).
+     *
+     * @return the server's final status code
+     */
+    private CompletableFuture<Integer> runCycle(long now, DataPushService.Encodings encodings) {
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        if (manager == null) {
+            return CompletableFuture.completedFuture(-1);
+        }
+
+        DataPushService.Payload payload = retryPayload(now);
+        if (payload == null) {
+            return pushFresh(nextPayload(manager, encodings));
+        }
+        if (!outboxRestored) {
+            return pushFresh(payload);
+        }
+        // Its sequence is from before the restart, so it says nothing about what the server has now
+        return send(payload).thenComposeAsync(status -> {
+            if (isRetryable(status)) {
+                return CompletableFuture.completedFuture(status);
+            }
+            outboxRestored = false;
+            if (isSuccess(status)) {
+                LOGGER.at(Level.INFO).log("[PlayerLogger] Delivered push to %s spooled before the last shutdown", url);
+            }
+            return pushFresh(nextPayload(manager, service.newEncodings()));
+        }, pushThread);
+    }
+
+    /**
+     * Push a payload built this run; a rejected delta falls back to a full snapshot.
+     */
+    private CompletableFuture<Integer> pushFresh(DataPushService.Payload payload) {
+        if (!payload.isDelta()) {
+            return push(payload);
+        }
+
+        // Payloads are built on the push thread, not the HttpClient's
+        return push(payload).thenComposeAsync(status -> {
+            if (!DELTA_REJECTED.contains(status)) {
+                return CompletableFuture.completedFuture(status);
+            }
+            LOGGER.at(Level.INFO).log("[PlayerLogger] %s rejected delta push (%d), sending full snapshot", url, status);
+            ackedSequence = -1;
+            return push(service.newEncodings().full(true));
+        }, pushThread);
+    }
+
+    /**
+     * Every player sorted by playtime descending, or in delta mode the players changed since the
+     * acknowledged sequence plus everyone online, if the change log still reaches back that far.
+     */
+    private DataPushService.Payload nextPayload(PlayerDataManager manager, DataPushService.Encodings encodings) {
+        if (!deltaEnabled) {
+            return encodings.full(false);
+        }
+
+        ChangeLog.Batch batch = null;
+        if (ackedSequence >= 0 && clock.getAsLong() - lastFullPushMillis < fullResyncMillis) {
+            // Null when the log no longer reaches back to what the server has
+            batch = manager.getChangeLog().since(ackedSequence);
+        }
+        return batch == null ? encodings.full(true) : encodings.delta(batch);
+    }
+
+    /**
+     * Send the payload and, once accepted, take its sequence as the server's.
+     */
+    private CompletableFuture<Integer> push(DataPushService.Payload payload) {
+        return send(payload).thenApply(status -> {
+            if (isSuccess(status)) {
+                ackedSequence = payload.sequence;
+                if (!payload.isDelta()) {
+                    lastFullPushMillis = clock.getAsLong();
+                }
+            }
+            return status;
+        });
+    }
+
+    /**
+     * Send the payload, recording push metrics. If its content matches the last push the
+     * server accepted, only a heartbeat is sent.
+     *
+     * @return the server's status code
+     */
+    private CompletableFuture<Integer> send(DataPushService.Payload payload) {
+        // Kept in the outbox as is if the server is down, heartbeat or not
+        lastAttempt = payload;
+        if (skipUnchanged && heartbeatsAccepted && lastAcceptedHash != null && lastAcceptedHash == payload.contentHash) {
+            return sendHeartbeat(payload.contentHash).thenCompose(status -> {
+                if (isSuccess(status) || status >= 500 || status < 0) {
+                    return CompletableFuture.completedFuture(status);
+                }
+                // The server doesn't understand heartbeats; always send full payloads from now on
+                LOGGER.at(Level.INFO).log("[PlayerLogger] %s rejected heartbeat (%d), no longer skipping unchanged pushes", url, status);
+                heartbeatsAccepted = false;
+                return sendPayload(payload);
+            });
+        }
+        return sendPayload(payload);
+    }
+
+    private CompletableFuture<Integer> sendPayload(DataPushService.Payload payload) {
+        return sendBody(payload).whenComplete((status, e) ->
+                lastAcceptedHash = e == null && isSuccess(status) ? payload.contentHash : null);
+    }
+
+    private CompletableFuture<Integer> sendBody(DataPushService.Payload payload) {
+        long start = System.nanoTime();
+        return sendPost(payload).whenComplete((status, e) -> {
+            boolean success = e == null && isSuccess(status);
+            PluginMetrics.PUSH_DURATION.observeNanos(System.nanoTime() - start);
+            (success ? PluginMetrics.PUSH_SUCCESSES : PluginMetrics.PUSH_FAILURES).increment();
+        });
+    }
+
+    /**
+     * Tell the server this plugin is still alive and its data unchanged.
+     */
+    private CompletableFuture<Integer> sendHeartbeat(long contentHash) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("heartbeat").value(true);
+            writer.name("contentHash").value(Long.toHexString(contentHash));
+            String serverName = service.getServerName();
+            if (serverName != null && !serverName.isEmpty()) {
+                writer.name("serverName").value(serverName);
+            }
+            writer.name("lastUpdated").value(System.currentTimeMillis());
+            writer.endObject();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return sendPost(new DataPushService.Payload(out.toString().getBytes(StandardCharsets.UTF_8))).thenApply(status -> {
+            if (isSuccess(status)) {
+                PluginMetrics.PUSH_SKIPPED.increment();
+            }
+            return status;
+        });
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    /**
+     * Post the body, gzipped unless the server has refused compressed bodies. The gzipped copy
+     * is made once per payload and shared with the other targets sending it.
+     * <p>
+     * Servers and proxies don't all refuse gzip with a 415: some answer 400, or strip the
+     * Content-Encoding and fail to parse the body. So until a gzipped push has been accepted,
+     * any 4xx other than a timeout or rate limit is taken as a refusal too.
+     *
+     * @return the final status code after redirects, or -1 after too many redirects
+     */
+    private CompletableFuture<Integer> sendPost(DataPushService.Payload payload) {
+        if (!gzipEnabled) {
+            return postFollowingRedirects(pushTarget, payload.body, false, 0);
+        }
+        return postFollowingRedirects(pushTarget, payload.gzipped(), true, 0).thenCompose(status -> {
+            if (isSuccess(status)) {
+                gzipConfirmed = true;
+            }
+            boolean refused = status == 415
+                    || !gzipConfirmed && status >= 400 && status < 500 && !isRetryable(status);
+            if (!refused) {
+                return CompletableFuture.completedFuture(status);
+            }
+            LOGGER.at(Level.INFO).log("[PlayerLogger] %s rejected a gzip body (%d), sending uncompressed from now on", url, status);
+            gzipEnabled = false;
+            return postFollowingRedirects(pushTarget, payload.body, false, 0);
+        });
+    }
+
+    private CompletableFuture<Integer> postFollowingRedirects(URI target, byte[] body, boolean gzip, int redirectCount) {
+        if (redirectCount > 5) {
+            LOGGER.at(Level.WARNING).log("[PlayerLogger] Too many redirects");
+            return CompletableFuture.completedFuture(-1);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .header("Content-Type", "application/json")
+                .header("User-Agent", "PlayerLogger/1.0")
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (gzip) {
+            request.header("Content-Encoding", "gzip");
+        }
+        PluginMetrics.PUSH_BYTES.set(body.length);
+
+        return SharedHttpClient.get().sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .thenCompose(response -> {
+                    int responseCode = response.statusCode();
+
+                    // Handle redirects
+                    if (responseCode == 301 || responseCode == 302 || responseCode == 307 || responseCode == 308) {
+                        Optional<String> location = response.headers().firstValue("Location");
+                        if (location.isPresent()) {
+                            URI next = target.resolve(location.get());
+                            if (responseCode == 301 || responseCode == 308) {
+                                // Permanent: go straight there from now on
+                                LOGGER.at(Level.INFO).log("[PlayerLogger] Push URL moved to: %s", next);
+                                pushTarget = next;
+                            } else {
+                                LOGGER.at(Level.INFO).log("[PlayerLogger] Following redirect to: %s", next);
+                            }
+                            return postFollowingRedirects(next, body, gzip, redirectCount + 1);
+                        }
+                    }
+
+                    if (isSuccess(responseCode)) {
+                        LOGGER.at(Level.FINE).log("[PlayerLogger] Data pushed successfully to %s", url);
+                    } else if (!DELTA_REJECTED.contains(responseCode) && responseCode != 415) {
+                        LOGGER.at(Level.WARNING).log("[PlayerLogger] Push to %s failed with status: %d", url, responseCode);
+                    }
+                    return CompletableFuture.completedFuture(responseCode);
+                });
+    }
+}
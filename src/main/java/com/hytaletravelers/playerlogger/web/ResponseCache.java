@@ -0,0 +1,93 @@
+package com.hytaletravelers.playerlogger.web;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches encoded API responses per request key, tagged with the ETag they were built for.
+ * An entry is reused only while its ETag still matches the current one.
+ * Compressed variants are built on first request and kept alongside the raw bytes,
+ * as are any response headers the encoder derived from the same data.
+ */
+class ResponseCache {
+    private static final int MAX_ENTRIES = 128;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cached body for this key if it was built for this ETag, or null.
+     */
+    Entry getIfFresh(String key, String etag) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.etag.equals(etag) ? entry : null;
+    }
+
+    /**
+     * Get the cached body for this key and ETag, encoding and storing it on a miss.
+     * The encoder may add response headers to the map it is given.
+     */
+    Entry get(String key, String etag, Function<Map<String, String>, byte[]> encoder) {
+        Entry entry = getIfFresh(key, etag);
+        if (entry != null) {
+            return entry;
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        byte[] body = encoder.apply(headers);
+        entry = new Entry(etag, body, Collections.unmodifiableMap(headers));
+        if (entries.size() >= MAX_ENTRIES && !entries.containsKey(key)) {
+            // Keys are path + query string; unbounded query variety just resets the cache
+            entries.clear();
+        }
+        entries.put(key, entry);
+        return entry;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    static final class Entry {
+        final String etag;
+        final byte[] body;
+        final Map<String, String> headers;
+        private volatile byte[] gzipBody;
+        private volatile byte[] deflateBody;
+
+        Entry(String etag, byte[] body, Map<String, String> headers) {
+            this.etag = etag;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        /**
+         * Get the body in the given coding, compressing it once on first use.
+         */
+        byte[] encoded(ContentEncoding encoding) {
+            switch (encoding) {
+                case GZIP -> {
+                    byte[] encoded = gzipBody;
+                    if (encoded == null) {
+                        encoded = encoding.encode(body);
+                        gzipBody = encoded;
+                    }
+                    return encoded;
+                }
+                case DEFLATE -> {
+                    byte[] encoded = deflateBody;
+                    if (encoded == null) {
+                        encoded = encoding.encode(body);
+                        deflateBody = encoded;
+                    }
+                    return encoded;
+                }
+                default -> {
+                    return body;
+                }
+            }
+        }
+    }
+}
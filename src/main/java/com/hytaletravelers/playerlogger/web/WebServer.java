@@ -2,49 +2,154 @@ package com.hytaletravelers.playerlogger.web;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hytaletravelers.playerlogger.PlayerLoggerPlugin;
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.config.TrackingProfile.Tracker;
+import com.hytaletravelers.playerlogger.data.ChangeLog;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.data.PlayerSort;
+import com.hytaletravelers.playerlogger.data.WorldStats;
+import com.hytaletravelers.playerlogger.events.EventStream;
+import com.hytaletravelers.playerlogger.events.StatDeltaTracker;
+import com.hytaletravelers.playerlogger.events.StatEvent;
+import com.hytaletravelers.playerlogger.metrics.Histogram;
+import com.hytaletravelers.playerlogger.metrics.PluginMetrics;
+import com.hytaletravelers.playerlogger.metrics.PrometheusWriter;
+import com.hytaletravelers.playerlogger.query.StatQuery;
+import com.hytaletravelers.playerlogger.systems.TrackerSwitch;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 /**
  * Simple HTTP server exposing player data as JSON API.
+ * Each request runs on its own virtual thread; at most webMaxConcurrentRequests
+ * run at once and up to webMaxQueuedRequests more wait for up to webRequestTimeoutSeconds.
+ * Clients over their per-IP rate limit, and requests beyond the queue, get a 429.
+ * The /api/events stream is long-lived and limited separately by webMaxEventSubscribers.
  */
 public class WebServer {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int MAX_LOOKUP_UUIDS = 1000;
+    private static final int MAX_LOOKUP_BODY_BYTES = 64 * 1024;
+    private static final long EVENT_HEARTBEAT_MILLIS = 15_000;
+    private static final int EVENT_BATCH_SIZE = 64;
+    private static final int STREAM_MIN_ROWS = 500;
+    private static final int MAX_COMPILED_QUERIES = 256;
+    private static final long EXPORT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int EXPORT_BUFFER_CHARS = 16 * 1024;
+    private static final int STREAM_BUFFER_CHARS = 8192;
 
     private final HttpServer server;
     private final Gson gson;
+    private final PluginConfig config;
+    private final ResponseCache responseCache = new ResponseCache();
+    private final EventStream eventStream;
+    private final StatDeltaTracker deltaTracker = new StatDeltaTracker();
     private final String bindAddress;
     private final int port;
 
-    public WebServer(String bindAddress, int port) throws IOException {
-        this.bindAddress = bindAddress;
-        this.port = port;
+    // Request handling
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timeoutScheduler;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final long requestTimeoutMillis;
+    private final ClientRateLimiter rateLimiter;
+
+    // Queue metrics
+    private final AtomicInteger queuedRequests = new AtomicInteger();
+    private final AtomicInteger maxQueuedRequests = new AtomicInteger();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final LongAdder completedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder shedRequests = new LongAdder();
+    private final LongAdder timedOutRequests = new LongAdder();
+    private final Map<String, Histogram> routeLatencies = new LinkedHashMap<>();
+    private final Map<String, StatQuery> compiledQueries = new ConcurrentHashMap<>();
+
+    public WebServer(PluginConfig config) throws IOException {
+        this.config = config;
+        this.bindAddress = config.webBindAddress;
+        this.port = config.webPort;
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
 
-        server.createContext("/api/players", this::handlePlayers);
-        server.createContext("/api/stats", this::handleStats);
-        server.setExecutor(null);
+        this.permits = new Semaphore(Math.max(1, config.webMaxConcurrentRequests));
+        this.maxQueued = Math.max(0, config.webMaxQueuedRequests);
+        this.rateLimiter = config.webRateLimitPerSecond > 0
+                ? new ClientRateLimiter(config.webRateLimitPerSecond, config.webRateLimitBurst, config.webRateLimitMaxClients)
+                : null;
+        this.requestTimeoutMillis = Math.max(1, config.webRequestTimeoutSeconds) * 1000L;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "PlayerLogger-WebTimeout");
+            t.setDaemon(true);
+            return t;
+        });
+        this.eventStream = new EventStream(config.webEventBufferSize, config.webMaxEventSubscribers);
+
+        server.createContext("/api/players", bounded("/api/players", this::handlePlayers));
+        server.createContext("/api/stats", bounded("/api/stats", this::handleStats));
+        server.createContext("/api/worlds", bounded("/api/worlds", this::handleWorlds));
+        server.createContext("/api/status", bounded("/api/status", this::handleStatus));
+        server.createContext("/api/export", bounded("/api/export", this::handleExport, EXPORT_TIMEOUT_MILLIS));
+        server.createContext("/api/query", bounded("/api/query", this::handleQuery));
+        server.createContext("/api/changes", bounded("/api/changes", this::handleChanges));
+        server.createContext("/metrics", bounded("/metrics", this::handleMetrics));
+        server.createContext("/api/events", this::handleEvents);
+        server.setExecutor(executor);
     }
 
     public void start() {
         server.start();
+        long deltaInterval = Math.max(1, config.webEventDeltaIntervalSeconds);
+        timeoutScheduler.scheduleAtFixedRate(this::publishStatDeltas, deltaInterval, deltaInterval, TimeUnit.SECONDS);
+        if (rateLimiter != null) {
+            timeoutScheduler.scheduleAtFixedRate(() -> rateLimiter.evictFull(System.nanoTime()), 60, 60, TimeUnit.SECONDS);
+        }
         LOGGER.at(Level.INFO).log("[PlayerLogger] Web API started on %s:%d", bindAddress, port);
-        LOGGER.at(Level.INFO).log("[PlayerLogger] Endpoints: /api/players, /api/stats");
+        LOGGER.at(Level.INFO).log("[PlayerLogger] Endpoints: /api/players, /api/players/{uuid}, /api/players/by-name/{name}, /api/players/lookup, /api/stats, /api/worlds, /api/status, /api/query, /api/export, /api/events, /metrics");
     }
 
     public void stop() {
         server.stop(0);
+        responseCache.clear();
+        executor.shutdownNow();
+        timeoutScheduler.shutdownNow();
         LOGGER.at(Level.INFO).log("[PlayerLogger] Web API stopped");
     }
 
@@ -56,7 +161,230 @@ public class WebServer {
         return bindAddress;
     }
 
+    public EventStream getEventStream() {
+        return eventStream;
+    }
+
+    public int getQueuedRequests() {
+        return queuedRequests.get();
+    }
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests.get();
+    }
+
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    public long getCompletedRequests() {
+        return completedRequests.sum();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    public long getTimedOutRequests() {
+        return timedOutRequests.sum();
+    }
+
+    public long getShedRequests() {
+        return shedRequests.sum();
+    }
+
+    public long getRateLimitedRequests() {
+        return rateLimiter != null ? rateLimiter.getLimitedRequests() : 0;
+    }
+
+    /**
+     * Wrap a handler with the concurrency limit and request timeout.
+     * Requests that can't get a slot within the timeout get a 503; requests that
+     * run past the timeout have their connection closed. Completed requests are timed,
+     * queue wait included, into the route's latency histogram.
+     */
+    private HttpHandler bounded(String route, HttpHandler handler) {
+        return bounded(route, handler, requestTimeoutMillis);
+    }
+
+    /**
+     * Wrap a handler like {@link #bounded(String, HttpHandler)}, but with its own limit on
+     * handling time, for endpoints that legitimately run longer than ordinary requests.
+     */
+    private HttpHandler bounded(String route, HttpHandler handler, long runTimeoutMillis) {
+        Histogram latency = Histogram.latency();
+        routeLatencies.put(route, latency);
+        return exchange -> {
+            long start = System.nanoTime();
+            if (!admitClient(exchange)) {
+                return;
+            }
+
+            // Take a free slot if there is one; otherwise queue, unless the queue is already full
+            boolean acquired = permits.tryAcquire();
+            if (!acquired) {
+                int depth = queuedRequests.incrementAndGet();
+                maxQueuedRequests.accumulateAndGet(depth, Math::max);
+                try {
+                    if (depth > maxQueued) {
+                        shedRequests.increment();
+                        sendTooManyRequests(exchange, 1, "Server busy");
+                        return;
+                    }
+                    acquired = permits.tryAcquire(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    queuedRequests.decrementAndGet();
+                }
+            }
+
+            if (!acquired) {
+                rejectedRequests.increment();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendResponse(exchange, 503, "{\"error\":\"Server busy\"}");
+                return;
+            }
+
+            activeRequests.incrementAndGet();
+            ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+                timedOutRequests.increment();
+                exchange.close();
+            }, runTimeoutMillis, TimeUnit.MILLISECONDS);
+
+            try {
+                handler.handle(exchange);
+            } finally {
+                timeout.cancel(false);
+                activeRequests.decrementAndGet();
+                permits.release();
+                completedRequests.increment();
+                exchange.close();
+                latency.observeNanos(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Apply the per-client rate limit, answering 429 if the client is over it.
+     *
+     * @return true if the request may proceed
+     */
+    private boolean admitClient(HttpExchange exchange) throws IOException {
+        if (rateLimiter == null) {
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(exchange.getRemoteAddress().getAddress().getHostAddress());
+        if (waitNanos <= 0) {
+            return true;
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        sendTooManyRequests(exchange, retryAfter, "Rate limit exceeded");
+        return false;
+    }
+
+    private void sendTooManyRequests(HttpExchange exchange, long retryAfterSeconds, String message) throws IOException {
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+        sendResponse(exchange, 429, gson.toJson(Map.of("error", message)));
+        exchange.close();
+    }
+
+    private void publishStatDeltas() {
+        try {
+            deltaTracker.publishDeltas(eventStream, PlayerDataManager.getInstance());
+            eventStream.dropLaggingSubscribers();
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Error publishing stat deltas");
+        }
+    }
+
+    /**
+     * Server-Sent Events stream of live stat events.
+     * Runs outside the request limiter since it stays open; a heartbeat comment is sent
+     * when idle so proxies keep the connection, and Last-Event-ID resumes after a reconnect.
+     */
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            exchange.close();
+            return;
+        }
+
+        if (!admitClient(exchange)) {
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+
+        long lastEventId = parseLastEventId(exchange);
+        EventStream.Subscription subscription = eventStream.subscribe(lastEventId, exchange::close);
+        if (subscription == null) {
+            exchange.getResponseHeaders().add("Retry-After", "5");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            sendResponse(exchange, 503, "{\"error\":\"Too many event subscribers\"}");
+            exchange.close();
+            return;
+        }
+
+        try (subscription) {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("X-Accel-Buffering", "no");
+            exchange.sendResponseHeaders(200, 0);
+
+            OutputStream out = exchange.getResponseBody();
+            out.write("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            while (true) {
+                List<StatEvent> events = subscription.next(EVENT_BATCH_SIZE, EVENT_HEARTBEAT_MILLIS);
+                if (events == null) {
+                    out.write("event: dropped\ndata: {\"reason\":\"slow consumer\"}\n\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    break;
+                }
+                if (events.isEmpty()) {
+                    out.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    for (StatEvent event : events) {
+                        out.write(event.toFrame());
+                    }
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client disconnected or was dropped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static long parseLastEventId(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (value == null) {
+            value = parseQuery(exchange).get("lastEventId");
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private void handlePlayers(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() > "/api/players/".length() && path.startsWith("/api/players/")) {
+            handlePlayerLookup(exchange, path.substring("/api/players/".length()));
+            return;
+        }
+
         if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
             sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
             return;
@@ -64,29 +392,344 @@ public class WebServer {
 
         setCorsHeaders(exchange);
 
+        // Optional ?world= narrows counters to one world; players without stats there are skipped
+        Map<String, String> params = parseQuery(exchange);
+        PlayerListQuery query;
+        try {
+            PlayerSort defaultSort = config.rankByActivePlaytime ? PlayerSort.ACTIVE_PLAYTIME : PlayerSort.PLAYTIME;
+            query = PlayerListQuery.parse(params, defaultSort);
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, gson.toJson(Map.of("error", e.getMessage())));
+            return;
+        }
+
+        boolean cbor = negotiateCbor(exchange);
+        String etag = beginConditional(exchange, cbor);
+        if (etag == null) {
+            return;
+        }
+
+        String key = cacheKey(exchange, cbor);
+        ResponseCache.Entry cached = responseCache.getIfFresh(key, etag);
+        if (cached != null) {
+            sendEntry(exchange, cached);
+            return;
+        }
+
+        PlayerListQuery.Page page = query.execute(PlayerDataManager.getInstance());
+        Map<String, String> pageHeaders = new LinkedHashMap<>();
+        pageHeaders.put("X-Total-Count", String.valueOf(page.total));
+        if (page.nextCursor != null) {
+            pageHeaders.put("X-Next-Cursor", page.nextCursor);
+            pageHeaders.put("Link", "<" + nextPageUrl(exchange, params, page.nextCursor) + ">; rel=\"next\"");
+        }
+
+        // Large pages are streamed rather than held in memory; small ones are cached for reuse
+        if (page.size() > STREAM_MIN_ROWS) {
+            streamPlayers(exchange, page, query, cbor, pageHeaders);
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(key, etag, headers -> {
+            headers.putAll(pageHeaders);
+            if (cbor) {
+                return encodeCbor(writer -> {
+                    writer.beginArray(page.size());
+                    for (PlayerData pd : page) {
+                        query.projection.write(writer, pd, query.world);
+                    }
+                });
+            }
+            StringWriter out = new StringWriter();
+            try (JsonWriter writer = newPrettyWriter(out)) {
+                writer.beginArray();
+                for (PlayerData pd : page) {
+                    query.projection.write(writer, pd, query.world);
+                }
+                writer.endArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        });
+        sendEntry(exchange, entry);
+    }
+
+    /**
+     * Write a page of players straight to the response with chunked transfer encoding.
+     * Players are read from the ranking snapshot and serialized one at a time, so memory
+     * use stays at the writer's buffer no matter how many players there are.
+     */
+    private void streamPlayers(HttpExchange exchange, PlayerListQuery.Page page, PlayerListQuery query,
+                               boolean cbor, Map<String, String> headers) throws IOException {
+        headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+
+        // Size isn't known up front; anything this large is worth compressing
+        ContentEncoding encoding = negotiateEncoding(exchange, Long.MAX_VALUE);
+        if (encoding != ContentEncoding.IDENTITY) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.headerValue());
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        if (cbor) {
+            try (OutputStream body = new BufferedOutputStream(encoding.wrap(exchange.getResponseBody()), STREAM_BUFFER_CHARS)) {
+                CborWriter writer = new CborWriter(body);
+                writer.beginArray(page.size());
+                for (PlayerData pd : page) {
+                    query.projection.write(writer, pd, query.world);
+                }
+            }
+            return;
+        }
+
+        try (OutputStream body = encoding.wrap(exchange.getResponseBody());
+             JsonWriter writer = newPrettyWriter(new BufferedWriter(
+                     new OutputStreamWriter(body, StandardCharsets.UTF_8), STREAM_BUFFER_CHARS))) {
+            writer.beginArray();
+            for (PlayerData pd : page) {
+                query.projection.write(writer, pd, query.world);
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * Single-player routes under /api/players/: {uuid}, by-name/{name} and the batch lookup.
+     */
+    private void handlePlayerLookup(HttpExchange exchange, String route) throws IOException {
+        setCorsHeaders(exchange);
+
+        if (route.equals("lookup")) {
+            handleBatchLookup(exchange);
+            return;
+        }
+
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
         PlayerDataManager manager = PlayerDataManager.getInstance();
-        List<PlayerResponse> playerList = new ArrayList<>();
+        PlayerData player;
+        if (route.startsWith("by-name/")) {
+            player = manager.getByUsername(route.substring("by-name/".length()));
+        } else {
+            UUID uuid = parseUuid(route);
+            if (uuid == null) {
+                sendResponse(exchange, 400, "{\"error\":\"Invalid UUID\"}");
+                return;
+            }
+            player = manager.get(uuid);
+        }
 
-        for (PlayerData pd : manager.getAllPlayers()) {
-            playerList.add(new PlayerResponse(
-                pd.getUuid().toString(),
-                pd.getUsername(),
-                pd.getTotalWithCurrentSession(),
-                pd.getFormattedPlaytime(),
-                pd.isOnline(),
-                pd.getDamageDealt(),
-                pd.getPlayerKills(),
-                pd.getMobKills(),
-                pd.getDeathCount(),
-                pd.getBlocksPlaced(),
-                pd.getBlocksBroken()
-            ));
-        }
-
-        playerList.sort((a, b) -> Long.compare(b.playtimeSeconds, a.playtimeSeconds));
-
-        String json = gson.toJson(playerList);
-        sendResponse(exchange, 200, json);
+        if (player == null) {
+            sendResponse(exchange, 404, "{\"error\":\"Player not found\"}");
+            return;
+        }
+
+        Map<String, String> params = parseQuery(exchange);
+        PlayerProjection projection = parseProjection(exchange, params);
+        if (projection == null) {
+            return;
+        }
+
+        String world = params.get("world");
+        boolean cbor = negotiateCbor(exchange);
+        String etag = beginConditional(exchange, cbor);
+        if (etag == null) {
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(cacheKey(exchange, cbor), etag, headers -> {
+            if (cbor) {
+                return encodeCbor(writer -> projection.write(writer, player, world));
+            }
+            StringWriter out = new StringWriter();
+            try (JsonWriter writer = newPrettyWriter(out)) {
+                projection.write(writer, player, world);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        });
+        sendEntry(exchange, entry);
+    }
+
+    /**
+     * POST /api/players/lookup with a JSON array of UUIDs, or {"uuids": [...]}.
+     * Returns the players that were found, in request order; unknown UUIDs are listed under "missing".
+     */
+    private void handleBatchLookup(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        List<String> requested;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_LOOKUP_BODY_BYTES + 1);
+            if (body.length > MAX_LOOKUP_BODY_BYTES) {
+                sendResponse(exchange, 413, "{\"error\":\"Request body too large\"}");
+                return;
+            }
+            requested = parseLookupBody(new String(body, StandardCharsets.UTF_8));
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            requested = null;
+        }
+
+        if (requested == null) {
+            sendResponse(exchange, 400, "{\"error\":\"Expected a JSON array of UUIDs\"}");
+            return;
+        }
+        if (requested.size() > MAX_LOOKUP_UUIDS) {
+            sendResponse(exchange, 400, "{\"error\":\"At most " + MAX_LOOKUP_UUIDS + " UUIDs per lookup\"}");
+            return;
+        }
+
+        Map<String, String> params = parseQuery(exchange);
+        PlayerProjection projection = parseProjection(exchange, params);
+        if (projection == null) {
+            return;
+        }
+
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        String world = params.get("world");
+        List<PlayerData> found = new ArrayList<>(requested.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : requested) {
+            UUID uuid = parseUuid(id);
+            PlayerData pd = uuid != null ? manager.get(uuid) : null;
+            if (pd != null) {
+                found.add(pd);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        if (negotiateCbor(exchange)) {
+            sendResponse(exchange, 200, encodeCbor(writer -> {
+                writer.beginMap(2).value("players").beginArray(found.size());
+                for (PlayerData pd : found) {
+                    projection.write(writer, pd, world);
+                }
+                writer.value("missing").beginArray(missing.size());
+                for (String id : missing) {
+                    writer.value(id);
+                }
+            }));
+            return;
+        }
+
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = newPrettyWriter(out)) {
+            writer.beginObject().name("players").beginArray();
+            for (PlayerData pd : found) {
+                projection.write(writer, pd, world);
+            }
+            writer.endArray().name("missing").beginArray();
+            for (String id : missing) {
+                writer.value(id);
+            }
+            writer.endArray().endObject();
+        }
+        sendResponse(exchange, 200, out.toString());
+    }
+
+    private static List<String> parseLookupBody(String body) {
+        JsonElement root = JsonParser.parseString(body);
+        if (root.isJsonObject()) {
+            root = root.getAsJsonObject().get("uuids");
+        }
+        if (root == null || !root.isJsonArray()) {
+            return null;
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (JsonElement element : root.getAsJsonArray()) {
+            ids.add(element.getAsString());
+        }
+        return ids;
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * URL of the next page: the same query with the cursor replaced and offset dropped.
+     */
+    private static String nextPageUrl(HttpExchange exchange, Map<String, String> params, String cursor) {
+        StringBuilder url = new StringBuilder(exchange.getRequestURI().getPath()).append('?');
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String key = param.getKey();
+            if (key.equals("cursor") || key.equals("offset")) {
+                continue;
+            }
+            url.append(URLEncoder.encode(key, StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8)).append('&');
+        }
+        return url.append("cursor=").append(cursor).toString();
+    }
+
+    /**
+     * Parse ?fields= into a projection, answering 400 and returning null if a field is unknown.
+     */
+    private PlayerProjection parseProjection(HttpExchange exchange, Map<String, String> params) throws IOException {
+        try {
+            return PlayerProjection.of(params.get("fields"));
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, gson.toJson(Map.of("error", e.getMessage())));
+            return null;
+        }
+    }
+
+    /**
+     * JsonWriter indented like the Gson responses elsewhere in the API.
+     */
+    private static JsonWriter newPrettyWriter(Writer out) {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        return writer;
+    }
+
+    /**
+     * Whether the client asked for CBOR rather than JSON; sets the response Content-Type to match.
+     * Only player routes speak CBOR, and errors are always JSON.
+     */
+    private static boolean negotiateCbor(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null) {
+            return false;
+        }
+        for (String range : accept.split(",")) {
+            int params = range.indexOf(';');
+            String type = (params >= 0 ? range.substring(0, params) : range).trim();
+            if (type.equalsIgnoreCase(CborWriter.CONTENT_TYPE)) {
+                exchange.getResponseHeaders().set("Content-Type", CborWriter.CONTENT_TYPE);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] encodeCbor(CborBody body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            body.write(new CborWriter(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface CborBody {
+        void write(CborWriter writer) throws IOException;
     }
 
     private void handleStats(HttpExchange exchange) throws IOException {
@@ -99,11 +742,19 @@ public class WebServer {
 
         PlayerDataManager manager = PlayerDataManager.getInstance();
 
+        String world = parseQuery(exchange).get("world");
+        sendCached(exchange, headers -> gson.toJson(world != null
+                ? buildWorldStats(manager, world)
+                : buildServerStats(manager)));
+    }
+
+    private Map<String, Object> buildServerStats(PlayerDataManager manager) {
         Map<String, Object> stats = new LinkedHashMap<>();
         stats.put("totalPlayers", manager.getPlayerCount());
         stats.put("onlinePlayers", manager.getOnlineCount());
 
         long totalPlaytime = 0;
+        long totalActivePlaytime = 0;
         float totalDamage = 0;
         int totalPlayerKills = 0;
         int totalMobKills = 0;
@@ -112,6 +763,7 @@ public class WebServer {
         int totalBlocksBroken = 0;
         for (PlayerData pd : manager.getAllPlayers()) {
             totalPlaytime += pd.getTotalWithCurrentSession();
+            totalActivePlaytime += pd.getActivePlaytimeSeconds();
             totalDamage += pd.getDamageDealt();
             totalPlayerKills += pd.getPlayerKills();
             totalMobKills += pd.getMobKills();
@@ -120,57 +772,481 @@ public class WebServer {
             totalBlocksBroken += pd.getBlocksBroken();
         }
         stats.put("totalPlaytimeSeconds", totalPlaytime);
+        stats.put("totalActivePlaytimeSeconds", totalActivePlaytime);
         stats.put("totalDamageDealt", totalDamage);
         stats.put("totalPlayerKills", totalPlayerKills);
         stats.put("totalMobKills", totalMobKills);
         stats.put("totalDeaths", totalDeaths);
         stats.put("totalBlocksPlaced", totalBlocksPlaced);
         stats.put("totalBlocksBroken", totalBlocksBroken);
+        return stats;
+    }
+
+    private void handleWorlds(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        setCorsHeaders(exchange);
+
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        sendCached(exchange, headers -> {
+            List<Map<String, Object>> worlds = new ArrayList<>();
+            for (String world : manager.getWorldNames()) {
+                worlds.add(buildWorldStats(manager, world));
+            }
+            return gson.toJson(worlds);
+        });
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        setCorsHeaders(exchange);
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxConcurrentRequests", config.webMaxConcurrentRequests);
+        status.put("activeRequests", getActiveRequests());
+        status.put("queuedRequests", getQueuedRequests());
+        status.put("maxQueuedRequests", getMaxQueuedRequests());
+        status.put("completedRequests", getCompletedRequests());
+        status.put("rejectedRequests", getRejectedRequests());
+        status.put("timedOutRequests", getTimedOutRequests());
+        status.put("shedRequests", getShedRequests());
+        status.put("rateLimitedRequests", getRateLimitedRequests());
+        status.put("eventSubscribers", eventStream.getSubscriberCount());
+        status.put("eventsPublished", eventStream.getPublishedEvents());
+        status.put("eventSubscribersDropped", eventStream.getDroppedSubscribers());
 
-        String json = gson.toJson(stats);
+        String json = gson.toJson(status);
         sendResponse(exchange, 200, json);
     }
 
+    /**
+     * Bulk export of every player as NDJSON (default) or CSV: GET /api/export?format=csv&fields=uuid,username.
+     * Every row is copied into an {@link ExportSnapshot} when the export starts, so the whole export
+     * is as of that moment, and output is streamed through a fixed-size buffer; only the compact
+     * copy grows with player count, not the encoded output.
+     */
+    private void handleExport(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        Map<String, String> params = parseQuery(exchange);
+        String format = params.getOrDefault("format", "ndjson").toLowerCase(Locale.ROOT);
+        boolean csv;
+        if (format.equals("csv")) {
+            csv = true;
+        } else if (format.equals("ndjson") || format.equals("jsonl")) {
+            csv = false;
+        } else {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            sendResponse(exchange, 400, "{\"error\":\"format must be ndjson or csv\"}");
+            return;
+        }
+
+        List<PlayerField> fields;
+        try {
+            fields = PlayerField.parseList(params.get("fields"));
+        } catch (IllegalArgumentException e) {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            sendResponse(exchange, 400, gson.toJson(Map.of("error", e.getMessage())));
+            return;
+        }
+
+        // The index's name-ordered array is immutable, so players joining mid-copy don't shift rows
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        long dataVersion = manager.getDataVersion();
+        ExportSnapshot snapshot = new ExportSnapshot(manager.getIndex().all(), fields);
+
+        exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Content-Type", csv ? "text/csv; charset=utf-8" : "application/x-ndjson");
+        exchange.getResponseHeaders().add("Content-Disposition",
+                "attachment; filename=\"players." + (csv ? "csv" : "ndjson") + "\"");
+        exchange.getResponseHeaders().add("X-Total-Count", String.valueOf(snapshot.size()));
+        exchange.getResponseHeaders().add("X-Data-Version", String.valueOf(dataVersion));
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+
+        ContentEncoding encoding = negotiateEncoding(exchange, Long.MAX_VALUE);
+        if (encoding != ContentEncoding.IDENTITY) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.headerValue());
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                encoding.wrap(exchange.getResponseBody()), StandardCharsets.UTF_8), EXPORT_BUFFER_CHARS)) {
+            if (csv) {
+                for (int i = 0; i < fields.size(); i++) {
+                    if (i > 0) out.write(',');
+                    out.write(fields.get(i).getFieldName());
+                }
+                out.write("\r\n");
+            }
+
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (csv) {
+                    snapshot.writeCsv(row, out);
+                } else {
+                    snapshot.writeJson(row, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ad-hoc aggregation over player stats: GET /api/query?q=avg(deathCount) where playtimeSeconds > 10h.
+     * Compiled queries are kept so repeated questions skip parsing.
+     */
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        setCorsHeaders(exchange);
+
+        String text = parseQuery(exchange).get("q");
+        StatQuery query = compiledQueries.get(text == null ? "" : text);
+        if (query == null) {
+            try {
+                query = StatQuery.compile(text);
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, gson.toJson(Map.of("error", e.getMessage())));
+                return;
+            }
+            if (compiledQueries.size() >= MAX_COMPILED_QUERIES) {
+                compiledQueries.clear();
+            }
+            compiledQueries.put(text, query);
+        }
+
+        StatQuery compiled = query;
+        sendCached(exchange, headers -> gson.toJson(compiled.execute(PlayerDataManager.getInstance().getAllPlayers())));
+    }
+
+    /**
+     * Incremental sync: GET /api/changes?since=<sequence> returns the players changed after that
+     * sequence plus everyone online (their playtime grows without a recorded change), and the
+     * UUIDs of removed players. Cursors the change log no longer covers get "resync": true;
+     * the client then reloads everything and continues from the returned sequence.
+     */
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        setCorsHeaders(exchange);
+
+        Map<String, String> params = parseQuery(exchange);
+        long since;
+        try {
+            since = Long.parseLong(params.getOrDefault("since", ""));
+        } catch (NumberFormatException e) {
+            sendResponse(exchange, 400, "{\"error\":\"since must be a sequence number\"}");
+            return;
+        }
+        PlayerProjection projection = parseProjection(exchange, params);
+        if (projection == null) {
+            return;
+        }
+
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        ChangeLog changeLog = manager.getChangeLog();
+        ChangeLog.Batch batch = changeLog.since(since);
+
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = newPrettyWriter(out)) {
+            writer.beginObject();
+            writer.name("since").value(since);
+            writer.name("sequence").value(batch != null ? batch.sequence : changeLog.getSequence());
+            writer.name("resync").value(batch == null);
+
+            if (batch != null) {
+                Set<UUID> written = new HashSet<>();
+                List<UUID> removed = new ArrayList<>();
+                writer.name("players").beginArray();
+                for (ChangeLog.Change change : batch.changes) {
+                    PlayerData pd = change.removed ? null : manager.get(change.uuid);
+                    if (pd == null) {
+                        removed.add(change.uuid);
+                    } else if (written.add(change.uuid)) {
+                        projection.write(writer, pd, null);
+                    }
+                }
+                for (PlayerData pd : manager.getOnlinePlayers()) {
+                    if (written.add(pd.getUuid())) {
+                        projection.write(writer, pd, null);
+                    }
+                }
+                writer.endArray();
+
+                writer.name("removed").beginArray();
+                for (UUID uuid : removed) {
+                    writer.value(uuid.toString());
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        }
+        sendResponse(exchange, 200, out.toString());
+    }
+
+    /**
+     * Prometheus text-format metrics for PlayerLogger itself.
+     */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            return;
+        }
+
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        PrometheusWriter metrics = new PrometheusWriter();
+
+        metrics.gauge("playerlogger_players_tracked", "Players with saved stats", manager.getPlayerCount());
+        metrics.gauge("playerlogger_players_online", "Players currently online", manager.getOnlineCount());
+
+        PlayerLoggerPlugin plugin = PlayerLoggerPlugin.getInstance();
+        if (plugin != null) {
+            for (Tracker tracker : Tracker.values()) {
+                TrackerSwitch trackerSwitch = plugin.getTrackerSwitch(tracker);
+                metrics.gauge("playerlogger_tracker_enabled", "Whether the tracking system is enabled by the active profile",
+                        trackerLabel(tracker), trackerSwitch.isEnabled() ? 1 : 0);
+            }
+            for (Tracker tracker : Tracker.values()) {
+                metrics.counter("playerlogger_tracker_events_handled_total", "ECS events or ticks processed by the tracking system",
+                        trackerLabel(tracker), plugin.getTrackerSwitch(tracker).getHandledCount());
+            }
+            for (Tracker tracker : Tracker.values()) {
+                metrics.counter("playerlogger_tracker_stat_events_total", "Kills, deaths and block changes recorded by the tracking system",
+                        trackerLabel(tracker), plugin.getTrackerSwitch(tracker).getEventCount());
+            }
+        }
+
+        metrics.histogram("playerlogger_save_duration_seconds", "Time taken to write players.json", null, PluginMetrics.SAVE_DURATION);
+        metrics.gauge("playerlogger_save_bytes", "Size of players.json after the last save", PluginMetrics.SAVE_BYTES.get());
+        metrics.counter("playerlogger_save_failures_total", "Failed saves", PluginMetrics.SAVE_FAILURES.sum());
+
+        metrics.histogram("playerlogger_push_duration_seconds", "Time taken to send a cloud sync push", null, PluginMetrics.PUSH_DURATION);
+        metrics.counter("playerlogger_push_total", "Cloud sync pushes by result", "result=\"success\"", PluginMetrics.PUSH_SUCCESSES.sum());
+        metrics.counter("playerlogger_push_total", "Cloud sync pushes by result", "result=\"failure\"", PluginMetrics.PUSH_FAILURES.sum());
+        metrics.counter("playerlogger_push_total", "Cloud sync pushes by result", "result=\"skipped\"", PluginMetrics.PUSH_SKIPPED.sum());
+        metrics.gauge("playerlogger_push_bytes", "Size of the last cloud sync payload as sent", PluginMetrics.PUSH_BYTES.get());
+
+        metrics.gauge("playerlogger_webhook_queue_depth", "Discord webhook messages waiting to be sent", PluginMetrics.WEBHOOK_QUEUE_DEPTH.get());
+        metrics.counter("playerlogger_webhook_sent_total", "Discord webhook messages delivered", PluginMetrics.WEBHOOK_SENT.sum());
+        metrics.counter("playerlogger_webhook_failures_total", "Discord webhook messages that failed", PluginMetrics.WEBHOOK_FAILURES.sum());
+        metrics.counter("playerlogger_webhook_dropped_total", "Discord webhook messages dropped because the queue was full", PluginMetrics.WEBHOOK_DROPPED.sum());
+
+        for (Map.Entry<String, Histogram> entry : routeLatencies.entrySet()) {
+            metrics.histogram("playerlogger_http_request_duration_seconds", "Local API request latency including queue wait",
+                    PrometheusWriter.label("route", entry.getKey()), entry.getValue());
+        }
+        metrics.gauge("playerlogger_http_requests_active", "Local API requests being handled", getActiveRequests());
+        metrics.gauge("playerlogger_http_requests_queued", "Local API requests waiting for a slot", getQueuedRequests());
+        metrics.counter("playerlogger_http_requests_rejected_total", "Local API requests rejected with 503", getRejectedRequests());
+        metrics.counter("playerlogger_http_requests_timed_out_total", "Local API requests aborted by the timeout", getTimedOutRequests());
+        metrics.counter("playerlogger_http_requests_shed_total", "Local API requests rejected with 429 because the queue was full", getShedRequests());
+        metrics.counter("playerlogger_http_requests_rate_limited_total", "Local API requests rejected with 429 by the per-client rate limit", getRateLimitedRequests());
+        if (rateLimiter != null) {
+            metrics.gauge("playerlogger_rate_limit_clients", "Client addresses with a tracked rate limit bucket", rateLimiter.getTrackedClients());
+            metrics.counter("playerlogger_rate_limit_evictions_total", "Rate limit buckets evicted from the client table", rateLimiter.getEvictedClients());
+        }
+
+        metrics.gauge("playerlogger_event_subscribers", "Clients connected to /api/events", eventStream.getSubscriberCount());
+        metrics.counter("playerlogger_events_published_total", "Live events published", eventStream.getPublishedEvents());
+        metrics.counter("playerlogger_event_subscribers_dropped_total", "Event subscribers dropped for falling behind", eventStream.getDroppedSubscribers());
+
+        exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+        sendResponse(exchange, 200, metrics.toString());
+    }
+
+    private static String trackerLabel(Tracker tracker) {
+        return PrometheusWriter.label("tracker", tracker.name().toLowerCase(Locale.ROOT));
+    }
+
+    private Map<String, Object> buildWorldStats(PlayerDataManager manager, String world) {
+        int players = 0;
+        int online = 0;
+        float totalDamage = 0;
+        int totalPlayerKills = 0;
+        int totalMobKills = 0;
+        int totalDeaths = 0;
+        int totalBlocksPlaced = 0;
+        int totalBlocksBroken = 0;
+        for (PlayerData pd : manager.getAllPlayers()) {
+            WorldStats ws = pd.getWorldStats(world);
+            if (ws == null) {
+                continue;
+            }
+            players++;
+            if (pd.isOnline()) {
+                online++;
+            }
+            totalDamage += ws.getDamageDealt();
+            totalPlayerKills += ws.getPlayerKills();
+            totalMobKills += ws.getMobKills();
+            totalDeaths += ws.getDeathCount();
+            totalBlocksPlaced += ws.getBlocksPlaced();
+            totalBlocksBroken += ws.getBlocksBroken();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("world", world);
+        stats.put("totalPlayers", players);
+        stats.put("onlinePlayers", online);
+        stats.put("totalDamageDealt", totalDamage);
+        stats.put("totalPlayerKills", totalPlayerKills);
+        stats.put("totalMobKills", totalMobKills);
+        stats.put("totalDeaths", totalDeaths);
+        stats.put("totalBlocksPlaced", totalBlocksPlaced);
+        stats.put("totalBlocksBroken", totalBlocksBroken);
+        return stats;
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
     private void setCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().add("Access-Control-Expose-Headers", "X-Total-Count, X-Next-Cursor, Link, ETag");
         exchange.getResponseHeaders().add("Content-Type", "application/json");
     }
 
+    /**
+     * Send a data response with an ETag derived from the data version.
+     * Matching If-None-Match gets a 304; otherwise the encoded body and any headers
+     * the encoder added are reused from the cache until the data changes.
+     */
+    private void sendCached(HttpExchange exchange, Function<Map<String, String>, String> encoder) throws IOException {
+        String etag = beginConditional(exchange);
+        if (etag == null) {
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(cacheKey(exchange), etag,
+                headers -> encoder.apply(headers).getBytes(StandardCharsets.UTF_8));
+        sendEntry(exchange, entry);
+    }
+
+    /**
+     * Set the ETag and caching headers, answering a matching If-None-Match with 304.
+     *
+     * @return the current ETag, or null if a 304 was sent
+     */
+    private String beginConditional(HttpExchange exchange) throws IOException {
+        return beginConditional(exchange, currentETag(""), "Accept-Encoding");
+    }
+
+    /**
+     * {@link #beginConditional(HttpExchange)} for routes that also speak CBOR;
+     * the two formats get distinct ETags and cache entries.
+     */
+    private String beginConditional(HttpExchange exchange, boolean cbor) throws IOException {
+        return beginConditional(exchange, currentETag(cbor ? "-cbor" : ""), "Accept, Accept-Encoding");
+    }
+
+    private String beginConditional(HttpExchange exchange, String etag, String vary) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", vary);
+
+        if (etagMatches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return null;
+        }
+        return etag;
+    }
+
+    private static String cacheKey(HttpExchange exchange) {
+        return exchange.getRequestURI().getPath() + "?" + exchange.getRequestURI().getRawQuery();
+    }
+
+    private static String cacheKey(HttpExchange exchange, boolean cbor) {
+        return cbor ? cacheKey(exchange) + "#cbor" : cacheKey(exchange);
+    }
+
+    private void sendEntry(HttpExchange exchange, ResponseCache.Entry entry) throws IOException {
+        entry.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+
+        ContentEncoding encoding = negotiateEncoding(exchange, entry.body.length);
+        if (encoding != ContentEncoding.IDENTITY) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.headerValue());
+        }
+        sendResponse(exchange, 200, entry.encoded(encoding));
+    }
+
+    /**
+     * Choose a content coding for a body of the given size.
+     * Bodies under webCompressionMinBytes are sent as-is.
+     */
+    private ContentEncoding negotiateEncoding(HttpExchange exchange, long bodySize) {
+        if (config.webCompressionMinBytes <= 0 || bodySize < config.webCompressionMinBytes) {
+            return ContentEncoding.IDENTITY;
+        }
+        return ContentEncoding.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /**
+     * Weak ETag for the current data version and, while anyone is online, the live clock step
+     * that playtime and playtime rankings are read at. Bodies under one tag therefore agree on
+     * order and membership, and go stale by at most one step.
+     */
+    private static String currentETag(String variant) {
+        PlayerDataManager manager = PlayerDataManager.getInstance();
+        long version = manager.getDataVersion();
+        long clock = manager.getLiveClock();
+        return "W/\"" + version + (clock != 0 ? "." + clock : "") + variant + "\"";
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires: W/ prefixes are ignored on both sides.
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void sendResponse(HttpExchange exchange, int code, String body) throws IOException {
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        sendResponse(exchange, code, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void sendResponse(HttpExchange exchange, int code, byte[] bytes) throws IOException {
         exchange.sendResponseHeaders(code, bytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(bytes);
         }
     }
-
-    private static class PlayerResponse {
-        final String uuid;
-        final String username;
-        final long playtimeSeconds;
-        final String playtimeFormatted;
-        final boolean online;
-        final float damageDealt;
-        final int playerKills;
-        final int mobKills;
-        final int deathCount;
-        final int blocksPlaced;
-        final int blocksBroken;
-
-        PlayerResponse(String uuid, String username, long playtimeSeconds, String playtimeFormatted,
-                       boolean online, float damageDealt, int playerKills, int mobKills, int deathCount,
-                       int blocksPlaced, int blocksBroken) {
-            this.uuid = uuid;
-            this.username = username;
-            this.playtimeSeconds = playtimeSeconds;
-            this.playtimeFormatted = playtimeFormatted;
-            this.online = online;
-            this.damageDealt = damageDealt;
-            this.playerKills = playerKills;
-            this.mobKills = mobKills;
-            this.deathCount = deathCount;
-            this.blocksPlaced = blocksPlaced;
-            this.blocksBroken = blocksBroken;
-        }
-    }
 }
@@ -6,17 +6,19 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hytaletravelers.playerlogger.config.PluginConfig;
 import com.hytaletravelers.playerlogger.data.PlayerData;
 import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.http.SharedHttpClient;
+import com.hytaletravelers.playerlogger.metrics.PluginMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -34,18 +36,19 @@ public class DiscordWebhookService {
     private static final int EMBED_COLOR_BLUE = 0x3498db;
     private static final int EMBED_COLOR_PURPLE = 0x9b59b6;
 
+    private static final int MAX_QUEUED_WEBHOOKS = 100;
+
     private static final String CURSEFORGE_URL = "https://www.curseforge.com/hytale/mods/player-logger";
 
     private final PluginConfig config;
-    private final HttpClient httpClient;
     private final ScheduledExecutorService scheduler;
     private final String serverName;
 
+    // Tail of the send pipeline; each webhook is sent after the previous one completes, keeping Discord's order
+    private CompletableFuture<Void> lastSend = CompletableFuture.completedFuture(null);
+
     public DiscordWebhookService(@Nonnull PluginConfig config) {
         this.config = config;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "PlayerLogger-Webhook");
             t.setDaemon(true);
@@ -162,7 +165,8 @@ public class DiscordWebhookService {
         }
 
         // Sort by playtime
-        players.sort(Comparator.comparingLong(PlayerData::getTotalPlaytimeSeconds).reversed());
+        boolean activeOnly = config.rankByActivePlaytime;
+        players.sort(Comparator.comparingLong((PlayerData p) -> p.getPlaytimeSeconds(activeOnly)).reversed());
 
         StringBuilder leaderboard = new StringBuilder();
         int count = Math.min(10, players.size());
@@ -177,7 +181,7 @@ public class DiscordWebhookService {
             };
             leaderboard.append(medal)
                     .append(" **").append(p.getUsername()).append("**")
-                    .append(" - ").append(p.getFormattedPlaytime())
+                    .append(" - ").append(p.getFormattedPlaytime(activeOnly))
                     .append(" | K: ").append(p.getKillCount())
                     .append(" D: ").append(p.getDeathCount())
                     .append("\n");
@@ -217,29 +221,40 @@ public class DiscordWebhookService {
     private void sendEmbed(@Nonnull Map<String, Object> embed) {
         if (config.webhookUrl.isEmpty()) return;
 
-        scheduler.execute(() -> {
-            try {
-                Map<String, Object> payload = new HashMap<>();
-                payload.put("embeds", List.of(embed));
+        // Discord rate-limits webhooks; rather than queue without bound, drop notifications while backed up
+        if (PluginMetrics.WEBHOOK_QUEUE_DEPTH.incrementAndGet() > MAX_QUEUED_WEBHOOKS) {
+            PluginMetrics.WEBHOOK_QUEUE_DEPTH.decrementAndGet();
+            PluginMetrics.WEBHOOK_DROPPED.increment();
+            return;
+        }
 
-                String json = GSON.toJson(payload);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("embeds", List.of(embed));
+        String json = GSON.toJson(payload);
 
+        synchronized (this) {
+            lastSend = lastSend.thenCompose(ignored -> {
+                PluginMetrics.WEBHOOK_QUEUE_DEPTH.decrementAndGet();
                 HttpRequest request = HttpRequest.newBuilder()
                         .uri(URI.create(config.webhookUrl))
                         .header("Content-Type", "application/json")
                         .POST(HttpRequest.BodyPublishers.ofString(json))
                         .timeout(Duration.ofSeconds(10))
                         .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() >= 400) {
+                return SharedHttpClient.get().sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            }).handle((response, e) -> {
+                if (e != null) {
+                    PluginMetrics.WEBHOOK_FAILURES.increment();
+                    LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to send webhook");
+                } else if (response.statusCode() >= 400) {
+                    PluginMetrics.WEBHOOK_FAILURES.increment();
                     LOGGER.at(Level.WARNING).log("[PlayerLogger] Webhook failed: HTTP %d", response.statusCode());
+                } else {
+                    PluginMetrics.WEBHOOK_SENT.increment();
                 }
-            } catch (Exception e) {
-                LOGGER.at(Level.WARNING).withCause(e).log("[PlayerLogger] Failed to send webhook");
-            }
-        });
+                return null;
+            });
+        }
     }
 
     private static class EmbedBuilder {
@@ -0,0 +1,279 @@
+package com.hytaletravelers.playerlogger.web;
+
+import com.hytaletravelers.playerlogger.config.PluginConfig;
+import com.hytaletravelers.playerlogger.data.PlayerData;
+import com.hytaletravelers.playerlogger.data.PlayerDataManager;
+import com.hytaletravelers.playerlogger.loadtest.IngestionStandIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Retries, backoff and the outbox of one {@link PushWorker}, pushing to a local {@link IngestionStandIn}.
+ * <p>
+ * Backoff tests poll the worker by hand on a test clock and check the delays it schedules, so
+ * they don't depend on how fast the machine is. The others poll it every 50ms on the real clock.
+ */
+class PushWorkerTest {
+    private static final long TIMEOUT_MILLIS = 15_000;
+    private static final String OUTBOX = "push-outbox.json";
+
+    @TempDir
+    Path dataFolder;
+
+    private PlayerDataManager manager;
+    private final List<PlayerData> players = new ArrayList<>();
+    private IngestionStandIn standIn;
+    private ScheduledExecutorService pushThread;
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private DataPushService service;
+    private PushWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PlayerDataManager.init(dataFolder, 1000);
+        manager = PlayerDataManager.getInstance();
+        for (int i = 0; i < 20; i++) {
+            players.add(manager.getOrCreate(UUID.randomUUID(), "Player" + i));
+        }
+        standIn = new IngestionStandIn(0);
+        standIn.start();
+        pushThread = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pushThread.shutdownNow();
+        standIn.stop();
+    }
+
+    @Test
+    void retriesOutboxPayloadWithBackoff() throws Exception {
+        standIn.setErrorRate(1);
+        createWorker(60, false, 1, 4, clock::get);
+
+        // Data changes between attempts must not reach the retries
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.get(0).incrementMobKills();
+            delays.add(pollOnce());
+        }
+        List<IngestionStandIn.Received> attempts = await(received -> received.kind.equals("503"), 4);
+        for (IngestionStandIn.Received attempt : attempts) {
+            assertEquals(attempts.get(0).wireHash, attempt.wireHash, "retry resent different bytes");
+        }
+
+        // 1 second, then 1-2, then 2-4
+        assertEquals(1000L, (long) delays.get(0));
+        assertBetween(1000, 2000, delays.get(1));
+        assertBetween(2000, 4000, delays.get(2));
+
+        standIn.setErrorRate(0);
+        pollOnce();
+        IngestionStandIn.Received delivered = await(received -> received.kind.equals("full"), 1).get(0);
+        assertEquals(attempts.get(0).wireHash, delivered.wireHash, "outbox payload wasn't the one delivered");
+    }
+
+    @Test
+    void freshPayloadSupersedesOutboxAfterInterval() throws Exception {
+        standIn.setErrorRate(1);
+        createWorker(2, false, 1, 1, clock::get);
+
+        assertEquals(1000L, pollOnce());
+        assertEquals(1000L, pollOnce());
+        // The outbox payload is now an interval old
+        players.get(0).incrementMobKills();
+        pollOnce();
+
+        List<IngestionStandIn.Received> attempts = await(received -> received.kind.equals("503"), 3);
+        int firstHash = attempts.get(0).wireHash;
+        assertEquals(firstHash, attempts.get(1).wireHash, "retry within the interval wasn't resent as is");
+        assertNotEquals(firstHash, attempts.get(2).wireHash, "outbox payload was still retried after the interval");
+
+        standIn.setErrorRate(0);
+        pollOnce();
+        IngestionStandIn.Received delivered = await(received -> received.kind.equals("full"), 1).get(0);
+        assertNotEquals(firstHash, delivered.wireHash, "stale outbox payload was delivered");
+        awaitInSync();
+    }
+
+    @Test
+    void deltaRetriesStayOnAcknowledgedBase() throws Exception {
+        startWorker(1, true, 1, 2);
+        await(received -> received.kind.equals("full"), 1);
+
+        standIn.setErrorRate(1);
+        for (int i = 0; i < 30; i++) {
+            players.get(i % players.size()).incrementMobKills();
+            if (i % 10 == 0) {
+                manager.getOrCreate(UUID.randomUUID(), "New" + i);
+            }
+            if (i == 15) {
+                manager.removePlayer(players.get(19).getUuid());
+            }
+            Thread.sleep(100);
+        }
+        await(received -> received.kind.equals("503"), 1);
+
+        standIn.setErrorRate(0);
+        long recovered = System.currentTimeMillis();
+        await(received -> received.kind.equals("delta") && received.receivedMillis >= recovered, 1);
+        awaitInSync();
+        assertEquals(0, standIn.getDeltaConflicts(), "a delta was sent on a base the server didn't have");
+    }
+
+    @Test
+    void spoolsFailedPayloadUntilAccepted() throws Exception {
+        standIn.setErrorRate(1);
+        startWorker(60, false, 1, 1);
+        await(received -> received.kind.equals("503"), 1);
+        awaitFile(true);
+
+        standIn.setErrorRate(0);
+        await(received -> received.kind.equals("full"), 1);
+        awaitFile(false);
+    }
+
+    @Test
+    void sendsSpooledPayloadFirstAfterRestart() throws Exception {
+        Files.writeString(dataFolder.resolve(OUTBOX),
+                "{\"serverName\":\"test\",\"players\":[],\"stats\":{\"totalPlayers\":0}}");
+        // Delta mode, so fresh snapshots carry a sequence
+        startWorker(60, true, 1, 1);
+
+        List<IngestionStandIn.Received> delivered = await(received -> received.kind.equals("full"), 2);
+        assertEquals(-1, delivered.get(0).sequence, "spooled payload wasn't sent first");
+        assertNotEquals(-1, delivered.get(1).sequence, "no fresh snapshot after the spooled payload");
+        awaitFile(false);
+        awaitInSync();
+    }
+
+    /**
+     * Start a worker on the real clock, polled every 50ms.
+     */
+    private void startWorker(int intervalSeconds, boolean delta, int retryBaseSeconds, int retryMaxSeconds)
+            throws Exception {
+        createWorker(intervalSeconds, delta, retryBaseSeconds, retryMaxSeconds, System::currentTimeMillis);
+        pushThread.scheduleWithFixedDelay(() -> worker.poll(System.currentTimeMillis(), service.newEncodings()),
+                0, 50, TimeUnit.MILLISECONDS);
+    }
+
+    private void createWorker(int intervalSeconds, boolean delta, int retryBaseSeconds, int retryMaxSeconds,
+                              LongSupplier workerClock) throws Exception {
+        PluginConfig config = new PluginConfig();
+        config.pushUrl = "";
+        config.serverName = "test";
+        config.pushRetryBaseSeconds = retryBaseSeconds;
+        config.pushRetryMaxSeconds = retryMaxSeconds;
+        PluginConfig.PushTarget target = new PluginConfig.PushTarget();
+        target.url = standIn.getBaseUrl() + "/push";
+        target.intervalSeconds = intervalSeconds;
+        target.deltaEnabled = delta;
+        target.skipUnchanged = false;
+
+        service = new DataPushService(config, dataFolder);
+        worker = new PushWorker(service, pushThread, config, target, new PushOutbox(dataFolder, OUTBOX), workerClock);
+        onPushThread(() -> {
+            worker.start(workerClock.getAsLong());
+            return null;
+        });
+    }
+
+    /**
+     * Poll the worker at the test clock, wait for the push to finish, then move the clock on to
+     * the next attempt.
+     *
+     * @return the delay the worker scheduled after the push, in milliseconds
+     */
+    private long pollOnce() throws Exception {
+        onPushThread(() -> {
+            worker.poll(clock.get(), service.newEncodings());
+            return null;
+        });
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (onPushThread(worker::isInFlight)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("push didn't finish");
+            }
+            Thread.sleep(20);
+        }
+        long delay = onPushThread(worker::getNextAttemptMillis) - clock.get();
+        clock.addAndGet(delay);
+        return delay;
+    }
+
+    private <T> T onPushThread(Callable<T> task) throws Exception {
+        return pushThread.submit(task).get();
+    }
+
+    /**
+     * Wait until the stand-in has received at least count matching pushes.
+     *
+     * @return the matching pushes, oldest first
+     */
+    private List<IngestionStandIn.Received> await(Predicate<IngestionStandIn.Received> filter, int count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            List<IngestionStandIn.Received> matching = new ArrayList<>();
+            for (IngestionStandIn.Received received : standIn.getRecent()) {
+                if (filter.test(received)) {
+                    matching.add(received);
+                }
+            }
+            if (matching.size() >= count) {
+                return matching;
+            }
+            Thread.sleep(20);
+        }
+        return fail("timed out waiting for " + count + " pushes");
+    }
+
+    /**
+     * Wait until the stand-in's copy is consistent and has every player. Changes are stamped at
+     * most once a second, so the last of them can take a push or two to arrive.
+     */
+    private void awaitInSync() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        IngestionStandIn.ServerState state = standIn.getServers().get("test");
+        while (!state.isConsistent() || state.getPlayerCount() != manager.getPlayerCount()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("stand-in has " + state.getPlayerCount() + " players, expected " + manager.getPlayerCount());
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private void awaitFile(boolean exists) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (Files.exists(dataFolder.resolve(OUTBOX)) != exists) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(exists ? "failed payload wasn't spooled" : "spool wasn't removed after the push was accepted");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual >= min && actual <= max, "expected " + min + "-" + max + "ms, was " + actual + "ms");
+    }
+}